@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+
+/**
+ * Event of an {@link ICounterTrace}: one row of counter values, read by
+ * column index without going through the fields of the content.
+ */
+public interface ICounterEvent extends ITmfEvent {
+
+	/**
+	 * Get the value of a counter
+	 *
+	 * @param column
+	 *            the index of the column, see {@link ICounterTrace#getColumn}
+	 * @return the value of the counter in this row
+	 */
+	long getLong(int column);
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+/**
+ * Trace of counter samples, each event being a row of {@code long} columns
+ * named by the header of the trace. Its events are {@link ICounterEvent}s.
+ *
+ * A column is looked up by name once, then read by index from every event.
+ */
+public interface ICounterTrace extends ITmfTrace {
+
+	/**
+	 * Get the number of counter columns
+	 *
+	 * @return the number of columns of every event
+	 */
+	int getColumnCount();
+
+	/**
+	 * Get the name of a column
+	 *
+	 * @param column
+	 *            the index of the column
+	 * @return its name, as in the header, without surrounding blanks
+	 */
+	String getColumnName(int column);
+
+	/**
+	 * Find a column by name
+	 *
+	 * @param name
+	 *            the name of the column, surrounding blanks are ignored
+	 * @return the index of the column, or -1 if the trace has no such column
+	 */
+	int getColumn(String name);
+}
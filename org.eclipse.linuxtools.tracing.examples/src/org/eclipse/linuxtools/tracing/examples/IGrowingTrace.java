@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTraceCompleteness;
+
+/**
+ * Trace whose file can still be appended to while it is open. A
+ * {@link TailFollower} polls the file and hands its new size to the trace,
+ * then sets the trace complete once the file stopped growing.
+ */
+public interface IGrowingTrace extends ITmfTraceCompleteness {
+
+	/**
+	 * Take into account the events appended to the trace file, and tell the
+	 * rest of the application about them
+	 *
+	 * @param fileSize
+	 *            the new size of the file
+	 * @return true if there are new events
+	 */
+	boolean grow(long fileSize);
+
+	/**
+	 * Wait until it is known if a trace opened shortly after its file was
+	 * modified is still growing, so that {@link #isComplete()} tells. Returns
+	 * at once if the trace was not followed or the probe is over.
+	 */
+	void waitForProbe();
+}
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Binary copy of the counters of a Seenu trace, stored in a sidecar file next
+ * to the trace: one column of longs per entry of the header line.
+ *
+ * The sidecar holds the header line too, so a trace with an up-to-date
+ * sidecar is read without touching its text. It is rebuilt when the size or
+ * the modification time of the trace changed.
+ *
+ * File layout (big-endian):
+ *
+ * <pre>
+ * int    magic
+ * int    version
+ * long   size of the trace file
+ * long   modification time of the trace file
+ * long   number of rows
+ * int    number of columns
+ * int    length of the header line
+ * byte[] header line, UTF-8, padded to 8 bytes
+ * long[] every column, one after the other
+ * </pre>
+ */
+final class SeenuColumnCache {
+
+	/** Suffix of the sidecar file, appended to the name of the trace */
+	static final String SUFFIX = ".cols"; //$NON-NLS-1$
+
+	private static final int MAGIC = 0x53434F4C; /* SCOL */
+	private static final int VERSION = 3;
+	private static final int FIXED_HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 4;
+	private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	/* rows converted at once */
+	private static final int BLOCK_ROWS = 1 << 16;
+
+	/* values in one mapping of a column, 1 GB */
+	private static final int SEGMENT_ROWS = 1 << 27;
+
+	private final String fHeader;
+	private final long fNbRows;
+	/* the segments of every column */
+	private final LongBuffer[][] fColumns;
+
+	private SeenuColumnCache(String header, long nbRows, LongBuffer[][] columns) {
+		fHeader = header;
+		fNbRows = nbRows;
+		fColumns = columns;
+	}
+
+	/**
+	 * Get the sidecar of a trace
+	 *
+	 * @param file
+	 *            the trace file
+	 * @return the sidecar file
+	 */
+	static File getFile(File file) {
+		return new File(file.getPath() + SUFFIX);
+	}
+
+	/**
+	 * Map the columns of a trace
+	 *
+	 * @param file
+	 *            the trace file
+	 * @return the columns, or null if the sidecar does not exist or is out of
+	 *         date
+	 */
+	static SeenuColumnCache open(File file) {
+		File cacheFile = getFile(file);
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(cacheFile, "r"); //$NON-NLS-1$
+				FileChannel channel = raf.getChannel()) {
+			if (channel.size() < FIXED_HEADER_SIZE) {
+				return null;
+			}
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, FIXED_HEADER_SIZE);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION
+					|| header.getLong() != file.length()
+					|| header.getLong() != file.lastModified()) {
+				return null;
+			}
+			long nbRows = header.getLong();
+			int nbColumns = header.getInt();
+			int headerLength = header.getInt();
+			long dataStart = dataStart(headerLength);
+			if (nbRows < 0 || nbColumns <= 0 || headerLength < 0
+					|| channel.size() != dataStart + nbRows * nbColumns * 8) {
+				return null;
+			}
+			byte[] line = new byte[headerLength];
+			channel.map(MapMode.READ_ONLY, FIXED_HEADER_SIZE, headerLength).get(line);
+
+			int nbSegments = (int) ((nbRows + SEGMENT_ROWS - 1) / SEGMENT_ROWS);
+			LongBuffer[][] columns = new LongBuffer[nbColumns][nbSegments];
+			for (int column = 0; column < nbColumns; column++) {
+				long columnStart = dataStart + column * nbRows * 8;
+				for (int i = 0; i < nbSegments; i++) {
+					long first = (long) i * SEGMENT_ROWS;
+					long count = Math.min(SEGMENT_ROWS, nbRows - first);
+					columns[column][i] = channel.map(MapMode.READ_ONLY, columnStart + first * 8, count * 8).asLongBuffer();
+				}
+			}
+			/* the mappings stay valid once the channel is closed */
+			return new SeenuColumnCache(new String(line, UTF8), nbRows, columns);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Convert the rows of a trace to columns. The sidecar is written in a
+	 * temporary file and moved in place, so a partial one is never seen.
+	 *
+	 * @param file
+	 *            the trace file
+	 * @param header
+	 *            the header line of the trace
+	 * @param rows
+	 *            the index of the rows of the trace
+	 * @param monitor
+	 *            the progress monitor, the conversion stops if it is canceled
+	 * @return false if the conversion was canceled
+	 * @throws IOException
+	 *             if the trace could not be read or the sidecar written
+	 */
+	static boolean build(File file, String header, SeenuRowIndex rows, IProgressMonitor monitor) throws IOException {
+		final long size = file.length();
+		final long lastModified = file.lastModified();
+		final long nbRows = rows.getNbRows();
+		final int nbColumns = header.split(",").length; //$NON-NLS-1$
+		final byte[] line = header.getBytes(UTF8);
+		final long dataStart = dataStart(line.length);
+		final int nbBlocks = (int) ((nbRows + BLOCK_ROWS - 1) / BLOCK_ROWS);
+
+		File cacheFile = getFile(file);
+		File tmpFile = new File(cacheFile.getPath() + ".tmp"); //$NON-NLS-1$
+		monitor.beginTask(file.getName(), nbBlocks);
+		boolean done = false;
+		try (FileChannel in = new FileInputStream(file).getChannel();
+				RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw"); //$NON-NLS-1$
+				FileChannel out = raf.getChannel()) {
+			raf.setLength(0);
+			raf.setLength(dataStart + nbRows * nbColumns * 8);
+			ByteBuffer head = ByteBuffer.allocate(FIXED_HEADER_SIZE + line.length);
+			head.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(lastModified)
+					.putLong(nbRows).putInt(nbColumns).putInt(line.length).put(line);
+			head.flip();
+			writeFully(out, head, 0);
+
+			long[] values = new long[nbColumns];
+			long[][] block = new long[nbColumns][BLOCK_ROWS];
+			ByteBuffer bytes = ByteBuffer.allocateDirect(BLOCK_ROWS * 8);
+			for (long first = 0; first < nbRows; first += BLOCK_ROWS) {
+				if (monitor.isCanceled()) {
+					return false;
+				}
+				int count = (int) Math.min(BLOCK_ROWS, nbRows - first);
+				long start = rows.getRowStart(first);
+				MappedByteBuffer text = in.map(MapMode.READ_ONLY, start, rows.getRowStart(first + count) - start);
+				int pos = 0;
+				for (int i = 0; i < count; i++) {
+					pos = SeenuTrace.parseRow(text, pos, text.limit(), values);
+					if (pos < 0) {
+						throw new IOException("Row " + (first + i) + " is not complete"); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+					for (int column = 0; column < nbColumns; column++) {
+						block[column][i] = values[column];
+					}
+				}
+				for (int column = 0; column < nbColumns; column++) {
+					bytes.clear();
+					bytes.asLongBuffer().put(block[column], 0, count);
+					bytes.limit(count * 8);
+					writeFully(out, bytes, dataStart + (column * nbRows + first) * 8);
+				}
+				monitor.worked(1);
+			}
+			out.force(false);
+			done = true;
+		} finally {
+			monitor.done();
+			if (!done) {
+				tmpFile.delete();
+			}
+		}
+		Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return true;
+	}
+
+	/**
+	 * Get the header line of the trace
+	 *
+	 * @return the header line, without its newline
+	 */
+	String getHeader() {
+		return fHeader;
+	}
+
+	/**
+	 * Get the number of rows
+	 *
+	 * @return the number of rows
+	 */
+	long getNbRows() {
+		return fNbRows;
+	}
+
+	/**
+	 * Get the value of one counter
+	 *
+	 * @param row
+	 *            the index of the row
+	 * @param column
+	 *            the index of the column
+	 * @return the value
+	 */
+	long get(long row, int column) {
+		return fColumns[column][(int) (row / SEGMENT_ROWS)].get((int) (row % SEGMENT_ROWS));
+	}
+
+	/**
+	 * Get the values of a row
+	 *
+	 * @param row
+	 *            the index of the row
+	 * @param values
+	 *            receives the value of each column, the columns past its
+	 *            length are not read
+	 */
+	void read(long row, long[] values) {
+		int segment = (int) (row / SEGMENT_ROWS);
+		int index = (int) (row % SEGMENT_ROWS);
+		int nbColumns = Math.min(values.length, fColumns.length);
+		for (int column = 0; column < nbColumns; column++) {
+			values[column] = fColumns[column][segment].get(index);
+		}
+	}
+
+	private static long dataStart(int headerLength) {
+		return (FIXED_HEADER_SIZE + headerLength + 7) & ~7L;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long pos = position;
+		while (buffer.hasRemaining()) {
+			pos += channel.write(buffer, pos);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+
+/**
+ * Context of a Seenu trace. It keeps the region of the text it reads from, so
+ * several contexts can be read concurrently, each in its own part of the
+ * trace, without sharing any state.
+ */
+class SeenuContext extends TmfContext {
+
+	/* the region of the last row parsed, null if none was */
+	private SeenuRegion fRegion;
+
+	/**
+	 * Constructor
+	 *
+	 * @param location
+	 *            the location of the next row to read, its rank
+	 */
+	public SeenuContext(TmfLongLocation location) {
+		super(location, location.getLocationInfo());
+	}
+
+	/**
+	 * Get the region of the last row parsed
+	 *
+	 * @return the region, or null if no row was parsed from the text yet
+	 */
+	SeenuRegion getRegion() {
+		return fRegion;
+	}
+
+	/**
+	 * Set the region of the last row parsed
+	 *
+	 * @param region
+	 *            the region
+	 */
+	void setRegion(SeenuRegion region) {
+		fRegion = region;
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import java.util.Arrays;
+
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventType;
+import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+
+/**
+ * Row of a {@link SeenuTrace}. The counters are kept as primitives for
+ * {@link #getLong}, the timestamp and the fields for the generic views are
+ * only built the first time they are read. The event type is the one of the
+ * trace, shared by all its rows.
+ */
+public class SeenuEvent extends TmfEvent implements ICounterEvent {
+
+	private final SeenuTrace fTrace;
+	private final long fTime;
+	private final long[] fValues;
+
+	/* Built lazily */
+	private ITmfTimestamp fTimestamp;
+	private ITmfEventField fContent;
+
+	/**
+	 * Constructor
+	 *
+	 * @param trace
+	 *            the trace of the event
+	 * @param rank
+	 *            the rank of the row
+	 * @param time
+	 *            the time of the row, in the time scale of the trace
+	 * @param type
+	 *            the event type of the trace
+	 * @param values
+	 *            the value of each column, the array is not copied
+	 */
+	public SeenuEvent(SeenuTrace trace, long rank, long time, ITmfEventType type, long[] values) {
+		super(trace, rank, null, type, null);
+		fTrace = trace;
+		fTime = time;
+		fValues = values;
+	}
+
+	@Override
+	public long getLong(int column) {
+		return fValues[column];
+	}
+
+	@Override
+	public ITmfTimestamp getTimestamp() {
+		ITmfTimestamp timestamp = fTimestamp;
+		if (timestamp == null) {
+			timestamp = new TmfTimestamp(fTime, fTrace.getTimeScale());
+			fTimestamp = timestamp;
+		}
+		return timestamp;
+	}
+
+	/**
+	 * One field per column, the first one is named "value" and holds the rank
+	 * of the row.
+	 */
+	@Override
+	public ITmfEventField getContent() {
+		ITmfEventField content = fContent;
+		if (content == null) {
+			String[] names = fTrace.getFieldNames();
+			final TmfEventField[] fields = new TmfEventField[names.length];
+			fields[0] = new TmfEventField(names[0], getRank(), null);
+			for (int i = 1; i < fields.length; i++) {
+				fields[i] = new TmfEventField(names[i], fValues[i], null);
+			}
+			content = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, fields);
+			fContent = content;
+		}
+		return content;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = fTrace.hashCode();
+		result = prime * result + (int) (getRank() ^ (getRank() >>> 32));
+		result = prime * result + (int) (fTime ^ (fTime >>> 32));
+		result = prime * result + Arrays.hashCode(fValues);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SeenuEvent)) {
+			return false;
+		}
+		SeenuEvent other = (SeenuEvent) obj;
+		return fTrace == other.fTrace && getRank() == other.getRank()
+				&& fTime == other.fTime && Arrays.equals(fValues, other.fValues);
+	}
+
+	@Override
+	@SuppressWarnings("nls")
+	public String toString() {
+		return "SeenuEvent [rank=" + getRank() + ", time=" + fTime + ", values=" + Arrays.toString(fValues) + "]";
+	}
+}
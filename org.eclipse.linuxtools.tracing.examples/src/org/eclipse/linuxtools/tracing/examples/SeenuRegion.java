@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A mapped part of the text of a Seenu trace. It is never changed once mapped
+ * and only read with absolute gets, so any number of threads can parse rows
+ * from it at the same time.
+ */
+final class SeenuRegion {
+
+	/* bytes mapped at once, a row is never cut */
+	private static final long SIZE = 64L * 1024 * 1024;
+
+	/* the bytes [fStart, fEnd[ of the file */
+	private final ByteBuffer fBuffer;
+	private final long fStart;
+	private final long fEnd;
+
+	private SeenuRegion(ByteBuffer buffer, long start, long end) {
+		fBuffer = buffer;
+		fStart = start;
+		fEnd = end;
+	}
+
+	/**
+	 * Map the part of the file starting at a row
+	 *
+	 * @param channel
+	 *            the channel of the trace file
+	 * @param start
+	 *            the position of the row
+	 * @param end
+	 *            the position after the row, the region holds at least it
+	 * @return the region
+	 * @throws IOException
+	 *             if the file could not be mapped
+	 */
+	static SeenuRegion map(FileChannel channel, long start, long end) throws IOException {
+		long regionEnd = Math.min(channel.size(), Math.max(end, start + SIZE));
+		return new SeenuRegion(channel.map(MapMode.READ_ONLY, start, regionEnd - start), start, regionEnd);
+	}
+
+	/**
+	 * Check if a row is in the region
+	 *
+	 * @param start
+	 *            the position of the row
+	 * @param end
+	 *            the position after the row
+	 * @return true if the row is mapped by this region
+	 */
+	boolean contains(long start, long end) {
+		return start >= fStart && end <= fEnd;
+	}
+
+	/**
+	 * Parse a row of counters
+	 *
+	 * @param start
+	 *            the position of the row in the file
+	 * @param end
+	 *            the position after the row
+	 * @param values
+	 *            receives the value of each column
+	 * @return the number of columns of the row, or -1 if it is not in the
+	 *         region
+	 */
+	int parseRow(long start, long end, long[] values) {
+		if (!contains(start, end)) {
+			return -1;
+		}
+		return SeenuTrace.parseRow(fBuffer, (int) (start - fStart), (int) (end - fStart), values);
+	}
+}
@@ -0,0 +1,423 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Offsets of the rows of a Seenu trace, stored in a sidecar file next to the
+ * trace.
+ *
+ * The file is cut in chunks which are scanned for newlines in parallel, once
+ * to count the rows of every chunk and once to write their offsets, each chunk
+ * at its own place in the sidecar. The sidecar is memory-mapped when the trace
+ * is opened again, and rebuilt when the size or the modification time of the
+ * trace changed. If the directory of the trace is not writable, the sidecar is
+ * a temporary file.
+ *
+ * Only rows ended by a newline are in the sidecar, and blank lines are not
+ * rows. A row starts right after the newline of the row before it, so the
+ * blank lines in between are read as the start of the row and skipped by
+ * {@link SeenuTrace#parseRow}. The rows appended to a trace that is still
+ * being written are added in memory, the sidecar is rebuilt the next time the
+ * trace is opened. Once the trace is complete, a last row that is not ended by
+ * a newline is added in memory too.
+ *
+ * File layout (big-endian):
+ *
+ * <pre>
+ * int    magic
+ * int    version
+ * long   size of the trace file
+ * long   modification time of the trace file
+ * long   position of the first row
+ * long   number of rows
+ * long[] position of every row, then the position after the last row
+ * </pre>
+ */
+final class SeenuRowIndex {
+
+	/** Suffix of the sidecar file, appended to the name of the trace */
+	static final String SUFFIX = ".rowidx"; //$NON-NLS-1$
+
+	private static final int MAGIC = 0x53524958; /* SRIX */
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 8;
+
+	/* bytes of the trace scanned by one task */
+	private static final long CHUNK_SIZE = 16L * 1024 * 1024;
+
+	/* bytes of the sidecar mapped at once when writing the offsets of a chunk */
+	private static final long SLOTS_WINDOW = 1 << 20;
+
+	/* offsets in one mapping of the sidecar, 1 GB */
+	private static final int SEGMENT_ROWS = 1 << 27;
+
+	/* the rows in the sidecar */
+	private final long fNbMappedRows;
+	private final LongBuffer[] fSegments;
+
+	/* the start of the rows after the mapped ones, published by fNbRows */
+	private long[] fAppended = new long[0];
+	private volatile long fNbRows;
+
+	private SeenuRowIndex(long nbRows, LongBuffer[] segments) {
+		fNbMappedRows = nbRows;
+		fNbRows = nbRows;
+		fSegments = segments;
+	}
+
+	/**
+	 * Open the row index of a trace, building it if it does not exist or is
+	 * out of date
+	 *
+	 * @param file
+	 *            the trace file
+	 * @param dataOffset
+	 *            the position of the first row, after the header line
+	 * @return the index
+	 * @throws IOException
+	 *             if the trace could not be read or the index written
+	 */
+	static SeenuRowIndex openOrBuild(File file, long dataOffset) throws IOException {
+		long size = file.length();
+		long lastModified = file.lastModified();
+		File indexFile = new File(file.getPath() + SUFFIX);
+		SeenuRowIndex index = open(indexFile, size, lastModified, dataOffset);
+		if (index != null) {
+			return index;
+		}
+		try {
+			build(file, size, dataOffset, indexFile);
+		} catch (IOException e) {
+			/* read-only directory */
+			indexFile = File.createTempFile(file.getName(), SUFFIX);
+			indexFile.deleteOnExit();
+			build(file, size, dataOffset, indexFile);
+		}
+		index = open(indexFile, size, lastModified, dataOffset);
+		if (index == null) {
+			throw new IOException("Could not index " + file); //$NON-NLS-1$
+		}
+		return index;
+	}
+
+	/**
+	 * Get the number of rows
+	 *
+	 * @return the number of rows
+	 */
+	long getNbRows() {
+		return fNbRows;
+	}
+
+	/**
+	 * Get the position of a row in the trace file
+	 *
+	 * @param row
+	 *            the index of the row, or the number of rows for the position
+	 *            after the last row
+	 * @return the position of the first byte of the row
+	 */
+	long getRowStart(long row) {
+		if (row > fNbMappedRows) {
+			return fAppended[(int) (row - fNbMappedRows - 1)];
+		}
+		return fSegments[(int) (row / SEGMENT_ROWS)].get((int) (row % SEGMENT_ROWS));
+	}
+
+	/**
+	 * Index the rows appended to the trace. Only one thread may extend the
+	 * index, others can read it meanwhile.
+	 *
+	 * @param channel
+	 *            the channel of the trace file
+	 * @param size
+	 *            the new size of the trace file
+	 * @return the number of rows added
+	 * @throws IOException
+	 *             if the trace could not be read
+	 */
+	long extend(FileChannel channel, long size) throws IOException {
+		long nbRows = fNbRows;
+		long[] appended = fAppended;
+		int count = (int) (nbRows - fNbMappedRows);
+		/* the end of the last row is the start of a line */
+		boolean blank = true;
+		for (long start = getRowStart(nbRows); start < size; start += CHUNK_SIZE) {
+			MappedByteBuffer chunk = channel.map(MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+			final int length = chunk.limit();
+			for (int i = 0; i < length; i++) {
+				byte b = chunk.get(i);
+				if (b == '\n') {
+					if (!blank) {
+						if (count == appended.length) {
+							appended = Arrays.copyOf(appended, Math.max(1024, count * 2));
+						}
+						appended[count++] = start + i + 1;
+					}
+					blank = true;
+				} else if (blank && !isBlank(b)) {
+					blank = false;
+				}
+			}
+		}
+		/* the new offsets are written before the rows are published */
+		fAppended = appended;
+		fNbRows = fNbMappedRows + count;
+		return fNbRows - nbRows;
+	}
+
+	/**
+	 * Index the last row of a complete trace if it is not ended by a newline,
+	 * it ends at the end of the file. It must not be called while the trace
+	 * can still grow, nor by another thread than the one extending the index.
+	 *
+	 * @param channel
+	 *            the channel of the trace file
+	 * @param size
+	 *            the size of the trace file
+	 * @return true if there is such a row
+	 * @throws IOException
+	 *             if the trace could not be read
+	 */
+	boolean addLastRow(FileChannel channel, long size) throws IOException {
+		long nbRows = fNbRows;
+		long start = getRowStart(nbRows);
+		if (start >= size) {
+			return false;
+		}
+		/* blank lines after the last row are not a row */
+		MappedByteBuffer rest = channel.map(MapMode.READ_ONLY, start, size - start);
+		boolean blank = true;
+		for (int i = 0; i < rest.limit() && blank; i++) {
+			byte b = rest.get(i);
+			blank = (b == '\n' || isBlank(b));
+		}
+		if (blank) {
+			return false;
+		}
+		int count = (int) (nbRows - fNbMappedRows);
+		long[] appended = (count == fAppended.length) ? Arrays.copyOf(fAppended, count + 1) : fAppended;
+		appended[count] = size;
+		fAppended = appended;
+		fNbRows = nbRows + 1;
+		return true;
+	}
+
+	/*
+	 * Map an existing index, null if it is not the one of this trace.
+	 */
+	private static SeenuRowIndex open(File indexFile, long size, long lastModified, long dataOffset) throws IOException {
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r"); //$NON-NLS-1$
+				FileChannel channel = raf.getChannel()) {
+			if (channel.size() < HEADER_SIZE) {
+				return null;
+			}
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION
+					|| header.getLong() != size
+					|| header.getLong() != lastModified
+					|| header.getLong() != dataOffset) {
+				return null;
+			}
+			long nbRows = header.getLong();
+			long nbOffsets = nbRows + 1;
+			if (nbRows < 0 || channel.size() != HEADER_SIZE + nbOffsets * 8) {
+				return null;
+			}
+			LongBuffer[] segments = new LongBuffer[(int) ((nbOffsets + SEGMENT_ROWS - 1) / SEGMENT_ROWS)];
+			for (int i = 0; i < segments.length; i++) {
+				long first = (long) i * SEGMENT_ROWS;
+				long count = Math.min(SEGMENT_ROWS, nbOffsets - first);
+				segments[i] = channel.map(MapMode.READ_ONLY, HEADER_SIZE + first * 8, count * 8).asLongBuffer();
+			}
+			/* the mappings stay valid once the channel is closed */
+			return new SeenuRowIndex(nbRows, segments);
+		}
+	}
+
+	/*
+	 * Write the index in a temporary file and move it in place, so that a
+	 * partial index is never seen.
+	 */
+	private static void build(File file, final long size, final long dataOffset, File indexFile) throws IOException {
+		final long lastModified = file.lastModified();
+		final int nbChunks = (int) Math.max(1, (size - dataOffset + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		ForkJoinPool pool = new ForkJoinPool();
+		File tmpFile = new File(indexFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try (FileChannel in = new FileInputStream(file).getChannel();
+				RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw"); //$NON-NLS-1$
+				FileChannel out = raf.getChannel()) {
+			/* the number of rows ending in every chunk */
+			List<Callable<Long>> counts = new ArrayList<>();
+			for (int chunk = 0; chunk < nbChunks; chunk++) {
+				counts.add(new ChunkScan(in, null, dataOffset, size, chunk, 0));
+			}
+			long[] firstRows = new long[nbChunks + 1];
+			List<Future<Long>> results = pool.invokeAll(counts);
+			for (int chunk = 0; chunk < nbChunks; chunk++) {
+				firstRows[chunk + 1] = firstRows[chunk] + results.get(chunk).get();
+			}
+			long nbRows = firstRows[nbChunks];
+
+			raf.setLength(0);
+			raf.setLength(HEADER_SIZE + (nbRows + 1) * 8);
+			ByteBuffer header = out.map(MapMode.READ_WRITE, 0, HEADER_SIZE + 8);
+			header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(lastModified).putLong(dataOffset).putLong(nbRows);
+			/* the first row starts after the header line */
+			header.putLong(dataOffset);
+
+			/* every newline ending a row gives the start of the next row */
+			List<Callable<Long>> writes = new ArrayList<>();
+			for (int chunk = 0; chunk < nbChunks; chunk++) {
+				writes.add(new ChunkScan(in, out, dataOffset, size, chunk, firstRows[chunk] + 1));
+			}
+			for (Future<Long> result : pool.invokeAll(writes)) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/* a blank of a row, not a newline */
+	private static boolean isBlank(byte b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Scan of one chunk of the trace: counts the newlines that end a row, or
+	 * writes the position after each one in the sidecar.
+	 */
+	private static final class ChunkScan implements Callable<Long> {
+
+		private final FileChannel fIn;
+		private final FileChannel fOut;
+		private final long fDataOffset;
+		private final long fStart;
+		private final long fEnd;
+		private final long fFirstSlot;
+
+		ChunkScan(FileChannel in, FileChannel out, long dataOffset, long size, int chunk, long firstSlot) {
+			fIn = in;
+			fOut = out;
+			fDataOffset = dataOffset;
+			fStart = dataOffset + chunk * CHUNK_SIZE;
+			fEnd = Math.min(size, fStart + CHUNK_SIZE);
+			fFirstSlot = firstSlot;
+		}
+
+		@Override
+		public Long call() throws IOException {
+			if (fEnd <= fStart) {
+				return 0L;
+			}
+			MappedByteBuffer chunk = fIn.map(MapMode.READ_ONLY, fStart, fEnd - fStart);
+			final int length = chunk.limit();
+			/* the slots of this chunk, mapped in pieces to bound their size */
+			long slot = fFirstSlot;
+			LongBuffer slots = null;
+			long slotsEnd = slot;
+			long count = 0;
+			/* the first line of the chunk may start in the one before */
+			boolean lineStarted = (fStart == fDataOffset);
+			boolean blank = true;
+			for (int i = 0; i < length; i++) {
+				byte b = chunk.get(i);
+				if (b != '\n') {
+					/* only the start of a line is looked at */
+					if (blank && !isBlank(b)) {
+						blank = false;
+					}
+					continue;
+				}
+				if (blank && !lineStarted) {
+					blank = isBlankBefore();
+				}
+				lineStarted = true;
+				if (blank) {
+					continue;
+				}
+				blank = true;
+				count++;
+				if (fOut != null) {
+					if (slot == slotsEnd) {
+						long position = HEADER_SIZE + slot * 8;
+						slots = fOut.map(MapMode.READ_WRITE, position, Math.min(fOut.size() - position, SLOTS_WINDOW)).asLongBuffer();
+						slotsEnd = slot + slots.capacity();
+					}
+					slots.put(fStart + i + 1);
+					slot++;
+				}
+			}
+			return count;
+		}
+
+		/*
+		 * Check if the part of the line before the chunk is blank, it is read
+		 * backwards up to its start.
+		 */
+		private boolean isBlankBefore() throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(256);
+			long end = fStart;
+			while (end > fDataOffset) {
+				long start = Math.max(fDataOffset, end - buffer.capacity());
+				buffer.clear();
+				buffer.limit((int) (end - start));
+				while (buffer.hasRemaining()) {
+					if (fIn.read(buffer, start + buffer.position()) < 0) {
+						throw new IOException("The trace was truncated"); //$NON-NLS-1$
+					}
+				}
+				for (int i = (int) (end - start) - 1; i >= 0; i--) {
+					byte b = buffer.get(i);
+					if (b == '\n') {
+						return true;
+					}
+					if (!isBlank(b)) {
+						return false;
+					}
+				}
+				end = start;
+			}
+			return true;
+		}
+	}
+}
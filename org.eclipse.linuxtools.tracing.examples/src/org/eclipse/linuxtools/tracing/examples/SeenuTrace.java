@@ -1,48 +1,72 @@
 package org.eclipse.linuxtools.tracing.examples;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.nio.MappedByteBuffer;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
-import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.TmfEventType;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.signal.TmfTraceUpdatedSignal;
 import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfEventParser;
-import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
 
-public class SeenuTrace extends TmfTrace implements ITmfEventParser {
+public class SeenuTrace extends TmfTrace implements ITmfEventParser, ICounterTrace, IGrowingTrace {
 
-	ITmfLocation currentLoc = null;
+	volatile ITmfLocation currentLoc = null;
 
 	TmfLongLocation fCurrent;
 
 	private int fOffset;
 	private File fFile;
+	private String fHeader;
 	private String[] fEventTypes;
+	/* the names of the columns, without their blanks */
+	private String[] fColumnNames = new String[0];
+	/* the fields of the content of the rows, and their event type */
+	private String[] fFieldNames;
+	private TmfEventType fType;
 	private FileChannel fFileChannel;
-	private MappedByteBuffer fMappedByteBuffer;
-	private int[] offset = new int[649];
+	private SeenuRowIndex fRows;
+	private volatile long fNbEvents;
 
-	private static final int CHUNK_SIZE = 65536;
+	/* the binary columns, read instead of the text once they are converted */
+	private volatile SeenuColumnCache fColumns;
+	private Job fConversionJob;
+
+	/* rows appended by the sampler while the trace is followed */
+	private volatile TailFollower fFollower;
+	private volatile boolean fDisposed;
+
+	/* the CLK_REF_COUNTER column, -1 if the rank is the time */
+	private int fTimeColumn = -1;
+	private int fTimeScale = ITmfTimestamp.MILLISECOND_SCALE;
+
+	/* the last part of the text mapped, for the reads without a region of their own */
+	private volatile SeenuRegion fRegion;
+
+	/* the reference clock of the counters, in nanoseconds */
+	private static final String TIME_COLUMN = "CLK_REF_COUNTER"; //$NON-NLS-1$
 
 	@Override
 	public IStatus validate(IProject project, String path) {
@@ -56,56 +80,262 @@ public class SeenuTrace extends TmfTrace implements ITmfEventParser {
 				+ " is not a valid seenu trace");
 	}
 
+	/**
+	 * A trace is not complete while the sampler appends rows to it
+	 */
 	@Override
 	public boolean isComplete() {
-		return true;
+		TailFollower follower = fFollower;
+		return follower == null || follower.isComplete();
+	}
+
+	/**
+	 * The binary columns are converted once the trace is complete.
+	 */
+	@Override
+	public void setComplete(boolean isComplete) {
+		TailFollower follower = fFollower;
+		if (follower == null) {
+			return;
+		}
+		if (isComplete && !fDisposed) {
+			/* before the readers at the end see the trace complete */
+			growLastRow();
+		}
+		follower.setComplete(isComplete);
+		if (isComplete && !fDisposed) {
+			convert(fHeader);
+		}
+	}
+
+	@Override
+	public void waitForProbe() {
+		TailFollower follower = fFollower;
+		if (follower != null) {
+			follower.waitForProbe();
+		}
 	}
 
 	@Override
 	public void initTrace(IResource resource, String path, Class<? extends ITmfEvent> type, String name, String traceTypeId) throws TmfTraceException {
 		super.initTrace(resource, path, type, name, traceTypeId);
-		setTimeRange(new TmfTimeRange(new TmfTimestamp(0), new TmfTimestamp(1)));
 		seekEvent(0);
 
 		fFile = new File(path);
-		fFile.length();
-		fEventTypes = readHeader(fFile);
-		for(int i=0; i<649; i++){
-			offset[i] = -1;
+		/* a trace that may still be sampled, the follower tells */
+		boolean growing = TailFollower.isRecent(fFile);
+		fColumns = growing ? null : SeenuColumnCache.open(fFile);
+		final String header = (fColumns != null) ? fColumns.getHeader() : readHeader(fFile);
+		fHeader = header;
+		fEventTypes = header.split(","); //$NON-NLS-1$
+		fColumnNames = new String[fEventTypes.length];
+		for (int i = 0; i < fEventTypes.length; i++) {
+			fColumnNames[i] = fEventTypes[i].trim();
+		}
+		fFieldNames = fEventTypes.clone();
+		fFieldNames[0] = "value"; //$NON-NLS-1$
+		final TmfEventField[] fields = new TmfEventField[fFieldNames.length];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = new TmfEventField(fFieldNames[i], null, null);
+		}
+		fType = new TmfEventType(getTraceTypeId(), new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, fields));
+		fTimeColumn = getColumn(TIME_COLUMN);
+		if (fTimeColumn >= 0) {
+			fTimeScale = ITmfTimestamp.NANOSECOND_SCALE;
 		}
 
 		try {
-			fFileChannel = new FileInputStream(fFile).getChannel();
-			seek(0);
+			if (fColumns != null) {
+				fNbEvents = fColumns.getNbRows();
+			} else {
+				fRows = SeenuRowIndex.openOrBuild(fFile, fOffset);
+				fFileChannel = new FileInputStream(fFile).getChannel();
+				if (!growing) {
+					fRows.addLastRow(fFileChannel, fFileChannel.size());
+				}
+				fNbEvents = fRows.getNbRows();
+				if (!growing) {
+					convert(header);
+				}
+			}
+			updateTimeRange();
 		} catch (IOException e) {
+			throw new TmfTraceException(e.getMessage(), e);
+		}
+		if (growing) {
+			TailFollower follower = new TailFollower(this, fFile, fNbEvents);
+			fFollower = follower;
+			follower.start();
 		}
 	}
 
+	/**
+	 * Index the rows appended to the trace file, and tell the rest of the
+	 * application about them. Only the rows ended by a newline are taken.
+	 *
+	 * @param fileSize
+	 *            the new size of the file
+	 * @return true if there are new rows
+	 */
+	@Override
+	public boolean grow(long fileSize) {
+		long nbEvents;
+		TmfTimeRange range;
+		synchronized (this) {
+			try {
+				if (fRows.extend(fFileChannel, fileSize) == 0) {
+					return false;
+				}
+				nbEvents = fRows.getNbRows();
+				fNbEvents = nbEvents;
+				fFollower.setNbEvents(nbEvents);
+				range = updateTimeRange();
+			} catch (IOException e) {
+				return false;
+			}
+		}
+		if (range != null) {
+			broadcast(new TmfTraceUpdatedSignal(this, this, range, nbEvents));
+		}
+		return true;
+	}
+
+	/*
+	 * Index the last row of the trace once it is complete, if it is not ended
+	 * by a newline, and tell the rest of the application about it.
+	 */
+	private void growLastRow() {
+		long nbEvents;
+		TmfTimeRange range;
+		synchronized (this) {
+			try {
+				if (fRows == null || !fRows.addLastRow(fFileChannel, fFileChannel.size())) {
+					return;
+				}
+				nbEvents = fRows.getNbRows();
+				fNbEvents = nbEvents;
+				fFollower.setNbEvents(nbEvents);
+				range = updateTimeRange();
+			} catch (IOException e) {
+				return;
+			}
+		}
+		if (range != null) {
+			broadcast(new TmfTraceUpdatedSignal(this, this, range, nbEvents));
+		}
+	}
+
+	/*
+	 * Set the time range from the first and last rows, when the trace is
+	 * opened and whenever it grows. Null if the trace is empty.
+	 */
+	private TmfTimeRange updateTimeRange() throws IOException {
+		if (fNbEvents <= 0) {
+			return null;
+		}
+		TmfTimeRange range = new TmfTimeRange(new TmfTimestamp(getTime(0), fTimeScale),
+				new TmfTimestamp(getTime(fNbEvents - 1), fTimeScale));
+		setTimeRange(range);
+		return range;
+	}
+
 	@Override
 	public long getNbEvents() {
-		return 648;
+		return fNbEvents;
 	}
 
-	private String[] readHeader(File file) {
-		String header = new String();
-		try (BufferedReader br = new BufferedReader(new FileReader(file));) {
-			header = br.readLine();
+	@Override
+	public int getColumnCount() {
+		return fColumnNames.length;
+	}
+
+	@Override
+	public String getColumnName(int column) {
+		return fColumnNames[column];
+	}
+
+	@Override
+	public int getColumn(String name) {
+		String trimmed = name.trim();
+		for (int i = 0; i < fColumnNames.length; i++) {
+			if (fColumnNames[i].equals(trimmed)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Read the first line, the rows start after its newline: the header may
+	 * end with a carriage return, or hold characters of more than one byte.
+	 */
+	private String readHeader(File file) {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			int b;
+			while ((b = in.read()) >= 0 && b != '\n') {
+				line.write(b);
+			}
 		} catch (IOException e) {
 		}
-		fOffset = header.length() + 1;
-		return header.split(","); //$NON-NLS-1$
+		fOffset = line.size() + 1;
+		String header = new String(line.toByteArray(), Charset.defaultCharset());
+		return header.endsWith("\r") ? header.substring(0, header.length() - 1) : header; //$NON-NLS-1$
+	}
+
+	/*
+	 * Convert the text to binary columns in the background, the rows are
+	 * parsed from the text until the columns are ready.
+	 */
+	private synchronized void convert(final String header) {
+		if (fConversionJob != null) {
+			return;
+		}
+		fConversionJob = new Job("Converting " + fFile.getName()) { //$NON-NLS-1$
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					if (!SeenuColumnCache.build(fFile, header, fRows, monitor)) {
+						return Status.CANCEL_STATUS;
+					}
+				} catch (IOException e) {
+					/* the rows are still parsed from the text */
+					return Status.OK_STATUS;
+				}
+				fColumns = SeenuColumnCache.open(fFile);
+				return Status.OK_STATUS;
+			}
+		};
+		fConversionJob.setPriority(Job.LONG);
+		fConversionJob.schedule();
 	}
 
-	private void seek(long rank) throws IOException {
-		final int position = fOffset;
-		int size = Math.min((int) (fFileChannel.size() - position), CHUNK_SIZE);
-		fMappedByteBuffer = fFileChannel.map(MapMode.READ_ONLY, position, size);
-		offset[0]= 0;
+	/*
+	 * Parse a row from the text. The region of the context is kept if it
+	 * holds the row, else the last one mapped, else the part of the file
+	 * starting at the row is mapped: the mappings are never changed, so the
+	 * rows are parsed without a lock.
+	 */
+	private int readRow(SeenuContext context, long row, long[] values) throws IOException {
+		long start = fRows.getRowStart(row);
+		long end = fRows.getRowStart(row + 1);
+		SeenuRegion region = (context != null) ? context.getRegion() : null;
+		if (region == null || !region.contains(start, end)) {
+			region = fRegion;
+			if (region == null || !region.contains(start, end)) {
+				region = SeenuRegion.map(fFileChannel, start, end);
+				fRegion = region;
+			}
+			if (context != null) {
+				context.setRegion(region);
+			}
+		}
+		return region.parseRow(start, end, values);
 	}
 
 	@Override
 	public long getStreamingInterval() {
-		return 0;
+		return isComplete() ? 0 : TailFollower.INTERVAL;
 	}
 
 	@Override
@@ -116,7 +346,7 @@ public class SeenuTrace extends TmfTrace implements ITmfEventParser {
 	@Override
 	public double getLocationRatio(ITmfLocation location) {
 		TmfLongLocation locationInfo = (TmfLongLocation) location;
-		return locationInfo.getLocationInfo()/getNbEvents();
+		return locationInfo.getLocationInfo().doubleValue() / getNbEvents();
 	}
 
 	@Override
@@ -127,10 +357,15 @@ public class SeenuTrace extends TmfTrace implements ITmfEventParser {
 			longLocation = new TmfLongLocation(0);
 		}
 
-		TmfContext context = new TmfContext(longLocation);
-		context.setRank(longLocation.getLocationInfo());
+		return new SeenuContext(longLocation);
+	}
 
-		return context;
+	/**
+	 * The rank of a row is its location, no need to read from a checkpoint.
+	 */
+	@Override
+	public ITmfContext seekEvent(long rank) {
+		return seekEvent(new TmfLongLocation(Math.max(0, rank)));
 	}
 
 	@Override
@@ -140,69 +375,213 @@ public class SeenuTrace extends TmfTrace implements ITmfEventParser {
 		return seekEvent(location);
 	}
 
+	/**
+	 * The first row at or after a time, found with a binary search over the
+	 * rows as the reference clock only goes forward. Blank lines are not rows,
+	 * so every row has a time; a row that can not be read ends the search at
+	 * the last row known to be before the time, not at the first row.
+	 */
 	@Override
-	public synchronized ITmfEvent getNext(ITmfContext context) {
-		TmfLongLocation location = (TmfLongLocation) context.getLocation();
-		Long info = location.getLocationInfo();
-		TmfEvent event = null;
-		StringBuffer buffer;
-
-		if(offset[info.intValue()]!=-1){
-			fMappedByteBuffer.position(offset[info.intValue()]);
-		}else{
-		    System.out.println(info);
-		    offset[info.intValue()]= fMappedByteBuffer.position();
-		}
-
-		if(fMappedByteBuffer.position()+fEventTypes.length>fMappedByteBuffer.limit()){
-			setNbEvents(info);
-		}
-
-		if(info<getNbEvents()){
-			buffer= new StringBuffer();
-			String str;
-			final TmfEventField[] events = new TmfEventField[fEventTypes.length];
-			byte b[] = new byte[1];
-			for(int i=0; i< events.length; i++){
-				buffer = new StringBuffer();
-				fMappedByteBuffer.get(b);
-				str = new String(b);
-				while(!str.equals(",")){
-					if((str.equals("\n")&&i==events.length-1)||(str.equals("\r")&&i==events.length-1)){
-						break;
-					}else{
-					    System.out.println("");
-					}
-
-				    buffer.append(str);
+	public ITmfContext seekEvent(ITmfTimestamp timestamp) {
+		if (timestamp == null || fNbEvents == 0) {
+			return seekEvent((ITmfLocation) null);
+		}
+		long time = timestamp.normalize(0, fTimeScale).getValue();
+		long lo = 0;
+		long hi = fNbEvents;
+		try {
+			while (lo < hi) {
+				long mid = (lo + hi) >>> 1;
+				if (getTime(mid) < time) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+		} catch (IOException e) {
+			/* lo is still a row at or before the time */
+		}
+		return seekEvent(new TmfLongLocation(lo));
+	}
 
-				    if(fMappedByteBuffer.position()==fMappedByteBuffer.limit()){
-				    	str = "\n";
-				    }else{
-				    	fMappedByteBuffer.get(b);
-				    	str = new String(b);
-				    }
-				};
-				events[i] = new TmfEventField(fEventTypes[i], buffer.toString(), null);
+	/**
+	 * At the end of a trace that is still being sampled, this waits for the
+	 * next row to be appended, or for the trace to be complete.
+	 */
+	@Override
+	public ITmfEvent getNext(ITmfContext context) {
+		TmfLongLocation location = (TmfLongLocation) context.getLocation();
+		if (location.getLocationInfo() >= getNbEvents()) {
+			TailFollower follower = fFollower;
+			if (follower == null || !follower.waitForEvent(location.getLocationInfo())) {
+				return null;
 			}
+		}
+		return readNext(context, location.getLocationInfo());
+	}
 
-			final TmfEventField tmfEventField = new TmfEventField("value", info, null);
-			events[0] = tmfEventField;
-			final TmfEventField content = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, events);
-			event = new TmfEvent(this, info, new TmfTimestamp(info, ITmfTimestamp.MILLISECOND_SCALE), new TmfEventType(getTraceTypeId(), content), content);
-			currentLoc = new TmfLongLocation(++info);
-			if (event != null) {
-				updateAttributes(context, event.getTimestamp());
-				context.setLocation(getCurrentLocation());
-				context.increaseRank();
+	/*
+	 * Read a row without any lock, from the binary columns or from the
+	 * region of the context.
+	 */
+	private ITmfEvent readNext(ITmfContext context, Long info) {
+
+		long[] values = new long[fEventTypes.length];
+		SeenuColumnCache columns = fColumns;
+		if (columns != null) {
+			columns.read(info, values);
+		} else {
+			try {
+				SeenuContext seenuContext = (context instanceof SeenuContext) ? (SeenuContext) context : null;
+				if (readRow(seenuContext, info, values) < 0) {
+					return null;
+				}
+			} catch (IOException e) {
+				return null;
 			}
 		}
 
+		/* the timestamp and the content are built by the event if they are read */
+		long time = (fTimeColumn < 0) ? info : values[fTimeColumn];
+		ITmfEvent event = new SeenuEvent(this, info, time, fType, values);
+		/*
+		 * The number of events and the time range are known without reading,
+		 * there are no attributes to update.
+		 */
+		ITmfLocation next = new TmfLongLocation(++info);
+		currentLoc = next;
+		context.setLocation(next);
+		context.increaseRank();
 		return event;
 	}
 
+	/**
+	 * Get the scale of the times of the rows
+	 *
+	 * @return the scale, nanoseconds if there is a reference clock column
+	 */
+	int getTimeScale() {
+		return fTimeScale;
+	}
+
+	/**
+	 * Get the names of the fields of the content of the rows
+	 *
+	 * @return one name per column, the first field holds the rank
+	 */
+	String[] getFieldNames() {
+		return fFieldNames;
+	}
+
+	/*
+	 * The time of a row, read from its reference clock column.
+	 */
+	private long getTime(long row) throws IOException {
+		if (fTimeColumn < 0) {
+			return row;
+		}
+		SeenuColumnCache columns = fColumns;
+		if (columns != null) {
+			return columns.get(row, fTimeColumn);
+		}
+		long[] values = new long[fTimeColumn + 1];
+		if (readRow(null, row, values) < 0) {
+			throw new IOException("Row " + row + " is not complete"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return values[fTimeColumn];
+	}
+
+	/**
+	 * Parse a row of counters straight from the mapped bytes, without creating
+	 * any string. Blank lines before the row are skipped, as well as blanks and
+	 * carriage returns, an empty or non-numeric column is 0: a column is a
+	 * number if it is only digits, with a minus sign before them.
+	 *
+	 * @param buffer
+	 *            the mapped rows, only read with absolute gets
+	 * @param start
+	 *            the position of the row in the buffer
+	 * @param end
+	 *            the position after the row, a row also ends at its newline;
+	 *            the last row of a file may not have one
+	 * @param values
+	 *            receives the value of each column
+	 * @return the position of the next row, or -1 if there are only blank
+	 *         lines or the row is not in the buffer
+	 */
+	static int parseRow(ByteBuffer buffer, int start, int end, long[] values) {
+		if (start >= end || end > buffer.limit()) {
+			return -1;
+		}
+		int column = 0;
+		long value = 0;
+		boolean negative = false;
+		boolean digits = false;
+		boolean invalid = false;
+		boolean blank = true;
+		for (int pos = start; pos <= end; pos++) {
+			/* the end of the row, without a newline, ends its last column */
+			byte b = (pos < end) ? buffer.get(pos) : (byte) '\n';
+			if (b == '\n' && blank) {
+				if (pos == end) {
+					return -1;
+				}
+				/* a blank line is not a row, the row is on the next one */
+				continue;
+			}
+			if (b != ' ' && b != '\t' && b != '\r') {
+				blank = false;
+			}
+			if (b >= '0' && b <= '9') {
+				value = value * 10 + (b - '0');
+				digits = true;
+			} else if (b == ',' || b == '\n') {
+				if (column < values.length) {
+					values[column] = invalid ? 0 : (negative ? -value : value);
+				}
+				column++;
+				value = 0;
+				negative = false;
+				digits = false;
+				invalid = false;
+				if (b == '\n') {
+					for (int i = column; i < values.length; i++) {
+						values[i] = 0;
+					}
+					return Math.min(pos + 1, end);
+				}
+			} else if (b == '-' && !digits && !negative) {
+				negative = true;
+			} else if (b != ' ' && b != '\t' && b != '\r') {
+				/* a decimal point, a letter, or a sign after the digits */
+				invalid = true;
+			}
+		}
+		return -1;
+	}
+
 	@Override
 	public ITmfEvent parseEvent(ITmfContext context) {
 		return null;
 	}
+
+	@Override
+	public synchronized void dispose() {
+		super.dispose();
+		fDisposed = true;
+		if (fFollower != null) {
+			fFollower.stopFollowing();
+		}
+		setComplete(true);
+		if (fConversionJob != null) {
+			fConversionJob.cancel();
+		}
+		fRegion = null;
+		if (fFileChannel != null) {
+			try {
+				fFileChannel.close();
+			} catch (IOException e) {
+			}
+		}
+	}
 }
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples;
+
+import java.io.File;
+
+/**
+ * Follows a trace file that is still being written.
+ *
+ * The size of the file is polled, and the trace is told about every event
+ * appended to it. Once the file did not grow for the idle timeout, the capture
+ * is considered finished and the trace is set complete.
+ *
+ * The follower also holds the number of events the readers can see and the
+ * completeness of the trace, so that a reader at the end of the trace can wait
+ * for the next event.
+ *
+ * A file modified shortly before it is opened may be a capture that goes on,
+ * or one that was just copied. The follower first watches its size for a short
+ * probe time: if it does not change, the trace is set complete right away and
+ * gets the caches and the indexes of a complete trace. The trace is opened
+ * without waiting for the probe, the analyses that depend on the completeness
+ * wait for it with {@link #waitForProbe()}.
+ *
+ * Polling is used rather than a file system watch service, since the latter
+ * is not reliable on network file systems, where captures often end up.
+ */
+public final class TailFollower extends Thread {
+
+	/** Time between two checks of a growing trace file, in milliseconds */
+	public static final long INTERVAL = 500;
+
+	/**
+	 * Time without growth after which a growing trace file is complete, in
+	 * milliseconds
+	 */
+	public static final long IDLE_TIMEOUT = 10000;
+
+	/* time the size of a recently modified file is watched when it is opened */
+	private static final long PROBE_TIME = 2 * INTERVAL;
+	private static final long PROBE_INTERVAL = 50;
+
+	private final IGrowingTrace fTrace;
+	private final File fFile;
+	private volatile boolean fStopped;
+
+	/* notified when events are appended, the probe ends or the trace is complete */
+	private final Object fGrowthLock = new Object();
+	private volatile long fNbEvents;
+	private volatile boolean fComplete;
+	private boolean fProbing = true;
+
+	/**
+	 * Constructor
+	 *
+	 * @param trace
+	 *            the trace to extend
+	 * @param file
+	 *            the file of the trace
+	 * @param nbEvents
+	 *            the number of events in the file when it is opened
+	 */
+	public TailFollower(IGrowingTrace trace, File file, long nbEvents) {
+		super("Tail follower: " + file.getName()); //$NON-NLS-1$
+		setDaemon(true);
+		fTrace = trace;
+		fFile = file;
+		fNbEvents = nbEvents;
+	}
+
+	/**
+	 * Check if a trace file may still be written when it is opened: it was
+	 * modified within the idle timeout. The trace is then opened as a growing
+	 * one, and the follower tells if it is.
+	 *
+	 * @param file
+	 *            the trace file
+	 * @return true if the file should be followed
+	 */
+	public static boolean isRecent(File file) {
+		return System.currentTimeMillis() - file.lastModified() < IDLE_TIMEOUT;
+	}
+
+	@Override
+	public void run() {
+		long start = System.currentTimeMillis();
+		long lastGrowth = start;
+		long lastSize = fFile.length();
+		try {
+			while (!fStopped) {
+				Thread.sleep(fProbing ? PROBE_INTERVAL : INTERVAL);
+				long now = System.currentTimeMillis();
+				long size = fFile.length();
+				/* a row being written changes the size before it adds an event */
+				if (fTrace.grow(size) || size != lastSize) {
+					lastGrowth = now;
+					lastSize = size;
+					endProbe();
+				} else if (fProbing ? now - start >= PROBE_TIME : now - lastGrowth >= IDLE_TIMEOUT) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			/* stopped */
+		} finally {
+			/* the trace is complete before the analyses waiting for the probe go on */
+			try {
+				fTrace.setComplete(true);
+			} finally {
+				endProbe();
+			}
+		}
+	}
+
+	private void endProbe() {
+		synchronized (fGrowthLock) {
+			fProbing = false;
+			fGrowthLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Wait until the probe tells if the file still grows: the trace is then
+	 * either followed, or complete. Returns at once after the probe.
+	 */
+	public void waitForProbe() {
+		synchronized (fGrowthLock) {
+			while (fProbing) {
+				try {
+					fGrowthLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop following the file, the trace is then complete
+	 */
+	public void stopFollowing() {
+		fStopped = true;
+		interrupt();
+	}
+
+	/**
+	 * Make new events visible to the readers waiting for them
+	 *
+	 * @param nbEvents
+	 *            the number of events of the trace
+	 */
+	public void setNbEvents(long nbEvents) {
+		synchronized (fGrowthLock) {
+			fNbEvents = nbEvents;
+			fGrowthLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Check if the trace is complete
+	 *
+	 * @return true once the file stopped growing or is no longer followed
+	 */
+	public boolean isComplete() {
+		return fComplete;
+	}
+
+	/**
+	 * Set the completeness of the trace, the readers waiting at its end are
+	 * released once it is complete
+	 *
+	 * @param isComplete
+	 *            true if no more events will be appended
+	 */
+	public void setComplete(boolean isComplete) {
+		synchronized (fGrowthLock) {
+			fComplete = isComplete;
+			fGrowthLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Wait for an event to be appended, while the trace is not complete
+	 *
+	 * @param rank
+	 *            the rank of the event
+	 * @return true if the event is in the trace, false if the trace was
+	 *         complete without it or the wait was interrupted
+	 */
+	public boolean waitForEvent(long rank) {
+		synchronized (fGrowthLock) {
+			while (rank >= fNbEvents && !fComplete) {
+				try {
+					fGrowthLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			return rank < fNbEvents;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.cache;
+
+/**
+ * Aggregate of the increases of a counter between two samples, over a time
+ * range: their number, sum, minimum, maximum and quantiles. With a fixed
+ * sampling period, the increase between two samples is the rate of the
+ * counter.
+ *
+ * The aggregate covers the buckets of the summary pyramid that are entirely
+ * in the range, its count, sum, minimum and maximum are exact for them. The
+ * quantiles are estimated within {@link #RELATIVE_ACCURACY} of the value, from
+ * the blocks of buckets entirely in the range; a range narrower than a block
+ * uses the blocks it overlaps.
+ */
+public final class CounterAggregate {
+
+    /** Relative error of a quantile */
+    public static final double RELATIVE_ACCURACY = QuantileSketch.RELATIVE_ACCURACY;
+
+    private final long fCount;
+    private final long fSum;
+    private final long fMin;
+    private final long fMax;
+    private final QuantileSketch fSketch;
+
+    CounterAggregate(long count, long sum, long min, long max, QuantileSketch sketch) {
+        fCount = count;
+        fSum = sum;
+        fMin = min;
+        fMax = max;
+        fSketch = sketch;
+    }
+
+    /**
+     * Get the number of samples
+     *
+     * @return the number of samples in the range
+     */
+    public long getCount() {
+        return fCount;
+    }
+
+    /**
+     * Get the sum of the increases
+     *
+     * @return the increase of the counter over the range
+     */
+    public long getSum() {
+        return fSum;
+    }
+
+    /**
+     * Get the smallest increase
+     *
+     * @return the smallest increase between two samples, 0 if there is no
+     *         sample
+     */
+    public long getMin() {
+        return fMin;
+    }
+
+    /**
+     * Get the largest increase
+     *
+     * @return the largest increase between two samples, 0 if there is no
+     *         sample
+     */
+    public long getMax() {
+        return fMax;
+    }
+
+    /**
+     * Get the average increase
+     *
+     * @return the average increase between two samples, NaN if there is no
+     *         sample
+     */
+    public double getAverage() {
+        if (fCount == 0) {
+            return Double.NaN;
+        }
+        return (double) fSum / fCount;
+    }
+
+    /**
+     * Get a quantile of the increases, for example 0.99 for the 99th
+     * percentile
+     *
+     * @param q
+     *            the quantile, from 0 to 1
+     * @return the estimated increase, NaN if there is no sample
+     */
+    public double getQuantile(double q) {
+        if (fCount == 0 || fSketch == null) {
+            return Double.NaN;
+        }
+        double value = fSketch.getQuantile(q);
+        return Math.max(fMin, Math.min(fMax, value));
+    }
+}
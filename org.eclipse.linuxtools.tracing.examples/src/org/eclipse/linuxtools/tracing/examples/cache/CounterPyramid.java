@@ -0,0 +1,733 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pre-aggregated summary of cumulative counters, at several resolutions.
+ *
+ * Every sample adds the increase of each counter since the previous sample to
+ * the bucket of its time. The finest level has buckets of a fixed width from
+ * the first sample, each coarser level has buckets twice as wide, up to
+ * a single bucket for the whole trace. Each bucket holds the sum, the minimum
+ * and the maximum of the increases of every counter, and the number of
+ * samples.
+ *
+ * Only the finest level is filled while the samples come in, and only it is
+ * saved; the coarser levels are merged from it when they are queried. When a
+ * trace that is still being written goes past the buckets the finest level
+ * can hold, its buckets are merged two by two and their width doubles.
+ *
+ * The finest buckets are also grouped in blocks of {@link #BLOCK_BUCKETS},
+ * each with a quantile sketch of the increases of every counter. The blocks
+ * are merged two by two with the buckets, there are never more than a few
+ * thousands of them whatever the length of the trace. Like the buckets, they
+ * have coarser levels merged when they are queried, so the sketch of a range
+ * is merged from a few blocks of each level.
+ *
+ * The first sample of the trace has no increase, it only gives the value the
+ * next one increases from. Its value is still in the histograms, like the
+ * ones computed from the history, but not in the aggregates.
+ *
+ * Parts of a trace can be summarized in separate pyramids starting at the
+ * same time, each seeded with the sample before its part, and merged in
+ * order of time once complete.
+ *
+ * The pyramid is filled by the state provider thread and queried from others,
+ * its methods are synchronized.
+ */
+final class CounterPyramid {
+
+    /** Number of buckets of the finest level over the time range of the trace */
+    static final int INITIAL_BUCKETS = 1 << 15;
+
+    /* Buckets of the finest level, at most, before it is made coarser */
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    /* Buckets of a level in one bucket of a histogram, at least */
+    private static final int BUCKETS_PER_BIN = 4;
+
+    /** Buckets of the finest level in a block of quantile sketches */
+    static final int BLOCK_BUCKETS = 1 << 5;
+
+    private static final int MAGIC = 0x43505952; /* CPYR */
+    private static final int FILE_VERSION = 3;
+
+    /* The buckets of one level */
+    private static final class Level {
+        final long[][] sum;
+        final long[][] min;
+        final long[][] max;
+        long[] count;
+        int size;
+
+        Level(int nbSeries, int capacity) {
+            sum = new long[nbSeries][capacity];
+            min = new long[nbSeries][capacity];
+            max = new long[nbSeries][capacity];
+            count = new long[capacity];
+        }
+
+        int capacity() {
+            return count.length;
+        }
+
+        void grow(int capacity) {
+            for (int s = 0; s < sum.length; s++) {
+                sum[s] = Arrays.copyOf(sum[s], capacity);
+                min[s] = Arrays.copyOf(min[s], capacity);
+                max[s] = Arrays.copyOf(max[s], capacity);
+            }
+            count = Arrays.copyOf(count, capacity);
+        }
+
+        /* Merge buckets 2i and 2i+1 of a level in bucket i of this one */
+        void mergeFrom(Level finer) {
+            size = (finer.size + 1) / 2;
+            for (int i = 0; i < size; i++) {
+                int a = 2 * i;
+                int b = a + 1;
+                boolean hasA = finer.count[a] > 0;
+                boolean hasB = b < finer.size && finer.count[b] > 0;
+                count[i] = finer.count[a] + (b < finer.size ? finer.count[b] : 0);
+                for (int s = 0; s < sum.length; s++) {
+                    sum[s][i] = finer.sum[s][a] + (b < finer.size ? finer.sum[s][b] : 0);
+                    if (hasA && hasB) {
+                        min[s][i] = Math.min(finer.min[s][a], finer.min[s][b]);
+                        max[s][i] = Math.max(finer.max[s][a], finer.max[s][b]);
+                    } else {
+                        min[s][i] = hasA ? finer.min[s][a] : (hasB ? finer.min[s][b] : 0);
+                        max[s][i] = hasA ? finer.max[s][a] : (hasB ? finer.max[s][b] : 0);
+                    }
+                }
+            }
+        }
+    }
+
+    private final String[] fSeries;
+    private long fStart;
+    private boolean fStarted;
+    private long fWidth;
+    private final long[] fLast;
+    private boolean fHasLast;
+
+    /* the first sample of the trace, null if it is not in this pyramid */
+    private long[] fFirst;
+    private long fFirstTime;
+
+    /* the finest level first, the coarser ones are valid up to fNbValidLevels */
+    private final List<Level> fLevels = new ArrayList<>();
+    private int fNbValidLevels = 1;
+
+    /* the sketches of every counter, by block of the finest level */
+    private final List<QuantileSketch[]> fBlocks = new ArrayList<>();
+
+    /* the coarser levels of blocks, from level 1, valid up to fNbValidBlockLevels */
+    private final List<List<QuantileSketch[]>> fBlockLevels = new ArrayList<>();
+    private int fNbValidBlockLevels = 1;
+
+    /**
+     * Constructor
+     *
+     * @param series
+     *            the names of the counters
+     * @param duration
+     *            the duration of the trace as known now, 0 if it is not known;
+     *            the pyramid follows the samples past it
+     */
+    CounterPyramid(String[] series, long duration) {
+        this(series, 0, Math.max(1, duration / INITIAL_BUCKETS), INITIAL_BUCKETS);
+    }
+
+    /**
+     * Constructor of a pyramid summarizing a part of a trace, which can be
+     * merged with the pyramids of the other parts
+     *
+     * @param series
+     *            the names of the counters
+     * @param start
+     *            the start time of the trace, rather than of the part
+     * @param duration
+     *            the duration of the trace
+     */
+    CounterPyramid(String[] series, long start, long duration) {
+        this(series, start, Math.max(1, duration / INITIAL_BUCKETS), INITIAL_BUCKETS);
+        fStarted = true;
+    }
+
+    /**
+     * Constructor of a pyramid summarizing the part of a trace after the one
+     * of another pyramid, which it can be merged in
+     *
+     * @param previous
+     *            the pyramid of the part before, its start time and the width
+     *            of its buckets are taken
+     */
+    CounterPyramid(CounterPyramid previous) {
+        this(previous.fSeries, previous.fStart, previous.fWidth, INITIAL_BUCKETS);
+        fStarted = true;
+    }
+
+    private CounterPyramid(String[] series, long start, long width, int capacity) {
+        fSeries = series;
+        fStart = start;
+        fWidth = width;
+        fLast = new long[series.length];
+        fLevels.add(new Level(series.length, capacity));
+    }
+
+    /**
+     * Get the index of a counter
+     *
+     * @param name
+     *            the name of the counter
+     * @return its index, or -1 if the pyramid does not have it
+     */
+    int getSeries(String name) {
+        for (int s = 0; s < fSeries.length; s++) {
+            if (fSeries[s].equals(name)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tell if no sample was added
+     *
+     * @return true if the pyramid is empty
+     */
+    synchronized boolean isEmpty() {
+        return fLevels.get(0).size == 0 && fFirst == null;
+    }
+
+    /**
+     * Add a sample of every counter
+     *
+     * @param time
+     *            the time of the sample
+     * @param values
+     *            the cumulative value of every counter, in the order of the
+     *            series
+     */
+    synchronized void add(long time, long[] values) {
+        if (!fStarted) {
+            fStart = time;
+            fStarted = true;
+        }
+        if (!fHasLast) {
+            System.arraycopy(values, 0, fLast, 0, fLast.length);
+            fHasLast = true;
+            fFirst = values.clone();
+            fFirstTime = time;
+            return;
+        }
+        long offset = Math.max(0, time - fStart);
+        while (offset / fWidth >= MAX_BUCKETS) {
+            coarsen();
+        }
+        int bucket = (int) (offset / fWidth);
+        Level level = fLevels.get(0);
+        if (bucket >= level.capacity()) {
+            level.grow(Math.min(MAX_BUCKETS, Math.max(bucket + 1, level.capacity() * 2)));
+        }
+        boolean first = level.count[bucket] == 0;
+        QuantileSketch[] sketches = getBlock(bucket / BLOCK_BUCKETS);
+        for (int s = 0; s < fSeries.length; s++) {
+            long delta = values[s] - fLast[s];
+            fLast[s] = values[s];
+            sketches[s].add(delta);
+            level.sum[s][bucket] += delta;
+            if (first || delta < level.min[s][bucket]) {
+                level.min[s][bucket] = delta;
+            }
+            if (first || delta > level.max[s][bucket]) {
+                level.max[s][bucket] = delta;
+            }
+        }
+        level.count[bucket]++;
+        level.size = Math.max(level.size, bucket + 1);
+        fNbValidLevels = 1;
+        fNbValidBlockLevels = 1;
+    }
+
+    /**
+     * Set the sample before the first one that will be added, for a pyramid
+     * summarizing a part of a trace
+     *
+     * @param values
+     *            the cumulative value of every counter, in the order of the
+     *            series
+     */
+    synchronized void seed(long[] values) {
+        System.arraycopy(values, 0, fLast, 0, fLast.length);
+        fHasLast = true;
+    }
+
+    /**
+     * Merge the pyramid of the next part of the trace in this one. Both must
+     * have been built with the same start time, series and width, or the
+     * next one from this one; the buckets of the finer one are merged until
+     * they have the same width.
+     *
+     * @param next
+     *            the pyramid of the samples following the ones of this
+     *            pyramid, it may be made coarser
+     */
+    void merge(CounterPyramid next) {
+        synchronized (this) {
+            synchronized (next) {
+                while (fWidth < next.fWidth) {
+                    coarsen();
+                }
+                while (next.fWidth < fWidth) {
+                    next.coarsen();
+                }
+                Level level = fLevels.get(0);
+                Level other = next.fLevels.get(0);
+                if (level.capacity() < other.size) {
+                    level.grow(other.size);
+                }
+                for (int i = 0; i < other.size; i++) {
+                    if (other.count[i] == 0) {
+                        continue;
+                    }
+                    boolean first = level.count[i] == 0;
+                    for (int s = 0; s < fSeries.length; s++) {
+                        level.sum[s][i] += other.sum[s][i];
+                        level.min[s][i] = first ? other.min[s][i] : Math.min(level.min[s][i], other.min[s][i]);
+                        level.max[s][i] = first ? other.max[s][i] : Math.max(level.max[s][i], other.max[s][i]);
+                    }
+                    level.count[i] += other.count[i];
+                }
+                level.size = Math.max(level.size, other.size);
+                for (int j = 0; j < next.fBlocks.size(); j++) {
+                    QuantileSketch[] sketches = getBlock(j);
+                    for (int s = 0; s < fSeries.length; s++) {
+                        sketches[s].merge(next.fBlocks.get(j)[s]);
+                    }
+                }
+                if (!fHasLast && next.fFirst != null) {
+                    fFirst = next.fFirst;
+                    fFirstTime = next.fFirstTime;
+                }
+                if (next.fHasLast) {
+                    System.arraycopy(next.fLast, 0, fLast, 0, fLast.length);
+                    fHasLast = true;
+                }
+                fNbValidLevels = 1;
+                fNbValidBlockLevels = 1;
+            }
+        }
+    }
+
+    /**
+     * Get the increase of a counter in every bucket of a time range, from the
+     * coarsest level that has enough buckets for it. A bucket of the level
+     * that straddles a border of the histogram is shared between both sides
+     * in proportion of its time on each side.
+     *
+     * @param series
+     *            the index of the counter
+     * @param start
+     *            the start time of the range
+     * @param end
+     *            the end time of the range
+     * @param nb
+     *            the number of buckets
+     * @return the increase in each bucket, or null if the buckets are too
+     *         narrow for the finest level
+     */
+    synchronized long[] histogram(int series, long start, long end, int nb) {
+        long binWidth = (end - start) / nb;
+        if (binWidth < fWidth * BUCKETS_PER_BIN) {
+            return null;
+        }
+        int k = 0;
+        while ((fWidth << (k + 1)) <= binWidth / BUCKETS_PER_BIN && (fWidth << (k + 1)) > 0) {
+            k++;
+        }
+        Level level = getLevel(k);
+        if (level == null) {
+            return null;
+        }
+        long levelWidth = fWidth << k;
+        long[] counts = new long[nb];
+        long first = (start <= fStart) ? 0 : (start - fStart) / levelWidth;
+        for (long i = first; i < level.size; i++) {
+            long bucketStart = fStart + i * levelWidth;
+            long bucketEnd = bucketStart + levelWidth;
+            /* the part of the bucket in the range, its end is inclusive */
+            long from = Math.max(bucketStart, start);
+            long to = Math.min(bucketEnd, end + 1);
+            if (from >= to) {
+                break;
+            }
+            long sum = level.sum[series][(int) i];
+            if (sum == 0) {
+                continue;
+            }
+            if (to - from < levelWidth) {
+                sum = share(sum, to - from, levelWidth);
+            }
+            /* the last bucket is stretched to the end of the range */
+            int bin = (int) Math.min(nb - 1, (from - start) / binWidth);
+            long binEnd = (bin == nb - 1) ? Long.MAX_VALUE : start + (bin + 1) * binWidth;
+            if (to > binEnd) {
+                long next = share(sum, to - binEnd, to - from);
+                counts[bin + 1] += next;
+                sum -= next;
+            }
+            counts[bin] += sum;
+        }
+        if (fFirst != null && fFirstTime >= start && fFirstTime <= end) {
+            counts[(int) Math.min(nb - 1, (fFirstTime - start) / binWidth)] += fFirst[series];
+        }
+        return counts;
+    }
+
+    /**
+     * Aggregate a counter over the buckets of the finest level that are
+     * entirely in a time range, using the coarsest buckets that fit. The
+     * quantiles come from the blocks entirely in these buckets, or from the
+     * blocks they overlap if the range is narrower than a block.
+     *
+     * @param series
+     *            the index of the counter
+     * @param start
+     *            the start time of the range
+     * @param end
+     *            the end time of the range, inclusive
+     * @return the aggregate, its count is 0 if no sample is in the range
+     */
+    synchronized CounterAggregate aggregate(int series, long start, long end) {
+        long lo = (start <= fStart) ? 0 : (start - fStart + fWidth - 1) / fWidth;
+        long hi = (end < fStart) ? 0 : Math.min(fLevels.get(0).size, (end - fStart + 1) / fWidth);
+        QuantileSketch sketch = sketch(series, lo, hi);
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long count = 0;
+        for (int k = 0; lo < hi; k++, lo >>= 1, hi >>= 1) {
+            Level level = getLevel(k);
+            int[] taken = new int[2];
+            int nbTaken = 0;
+            if ((lo & 1) != 0) {
+                taken[nbTaken++] = (int) lo++;
+            }
+            if ((hi & 1) != 0 && lo < hi) {
+                taken[nbTaken++] = (int) --hi;
+            }
+            for (int t = 0; t < nbTaken; t++) {
+                int i = taken[t];
+                if (level.count[i] > 0) {
+                    sum += level.sum[series][i];
+                    min = Math.min(min, level.min[series][i]);
+                    max = Math.max(max, level.max[series][i]);
+                    count += level.count[i];
+                }
+            }
+        }
+        if (count == 0) {
+            return new CounterAggregate(0, 0, 0, 0, null);
+        }
+        return new CounterAggregate(count, sum, min, max, sketch);
+    }
+
+    /*
+     * The merged sketch of a counter over the blocks in buckets lo to hi - 1,
+     * from the coarsest blocks that fit: two blocks per level at most.
+     */
+    private QuantileSketch sketch(int series, long lo, long hi) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (lo >= hi) {
+            return sketch;
+        }
+        long first = (lo + BLOCK_BUCKETS - 1) / BLOCK_BUCKETS;
+        long last = hi / BLOCK_BUCKETS;
+        if (first >= last) {
+            first = lo / BLOCK_BUCKETS;
+            last = (hi - 1) / BLOCK_BUCKETS + 1;
+        }
+        last = Math.min(last, fBlocks.size());
+        for (int k = 0; first < last; k++, first >>= 1, last >>= 1) {
+            List<QuantileSketch[]> blocks = getBlockLevel(k);
+            if ((first & 1) != 0) {
+                sketch.merge(blocks.get((int) first++)[series]);
+            }
+            if ((last & 1) != 0 && first < last) {
+                sketch.merge(blocks.get((int) --last)[series]);
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * Save the pyramid, its finest level only
+     *
+     * @param file
+     *            the file to write, it is replaced once complete
+     * @param version
+     *            the version of the state provider that built it
+     * @throws IOException
+     *             if the file could not be written
+     */
+    synchronized void save(File file, int version) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            write(out, version);
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the pyramid, its finest level only, in a file holding other data
+     *
+     * @param out
+     *            the output to write to
+     * @param version
+     *            the version of the state provider that built it
+     * @throws IOException
+     *             if it could not be written
+     */
+    synchronized void write(DataOutput out, int version) throws IOException {
+        Level level = fLevels.get(0);
+        out.writeInt(MAGIC);
+        out.writeInt(FILE_VERSION);
+        out.writeInt(version);
+        out.writeLong(fStart);
+        out.writeLong(fWidth);
+        out.writeInt(fSeries.length);
+        for (int s = 0; s < fSeries.length; s++) {
+            out.writeUTF(fSeries[s]);
+            out.writeLong(fLast[s]);
+        }
+        out.writeBoolean(fHasLast);
+        out.writeBoolean(fFirst != null);
+        if (fFirst != null) {
+            out.writeLong(fFirstTime);
+            for (long value : fFirst) {
+                out.writeLong(value);
+            }
+        }
+        out.writeInt(level.size);
+        for (int i = 0; i < level.size; i++) {
+            out.writeLong(level.count[i]);
+        }
+        for (int s = 0; s < fSeries.length; s++) {
+            for (int i = 0; i < level.size; i++) {
+                out.writeLong(level.sum[s][i]);
+                out.writeLong(level.min[s][i]);
+                out.writeLong(level.max[s][i]);
+            }
+        }
+        out.writeInt(fBlocks.size());
+        for (QuantileSketch[] sketches : fBlocks) {
+            for (QuantileSketch sketch : sketches) {
+                sketch.write(out);
+            }
+        }
+    }
+
+    /**
+     * Load a saved pyramid
+     *
+     * @param file
+     *            the saved pyramid
+     * @param version
+     *            the version of the state provider
+     * @return the pyramid, or null if it does not exist or was built by
+     *         another version of the state provider
+     */
+    static CounterPyramid load(File file, int version) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return read(in, version);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read a pyramid written by {@link #write}
+     *
+     * @param in
+     *            the input to read from
+     * @param version
+     *            the version of the state provider
+     * @return the pyramid, or null if it was built by another version of the
+     *         state provider
+     * @throws IOException
+     *             if it could not be read
+     */
+    static CounterPyramid read(DataInput in, int version) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FILE_VERSION || in.readInt() != version) {
+            return null;
+        }
+        long start = in.readLong();
+        long width = in.readLong();
+        String[] series = new String[in.readInt()];
+        long[] last = new long[series.length];
+        for (int s = 0; s < series.length; s++) {
+            series[s] = in.readUTF();
+            last[s] = in.readLong();
+        }
+        boolean hasLast = in.readBoolean();
+        long[] firstSample = null;
+        long firstTime = 0;
+        if (in.readBoolean()) {
+            firstTime = in.readLong();
+            firstSample = new long[series.length];
+            for (int s = 0; s < series.length; s++) {
+                firstSample[s] = in.readLong();
+            }
+        }
+        int size = in.readInt();
+        if (width <= 0 || size < 0 || size > MAX_BUCKETS) {
+            return null;
+        }
+        CounterPyramid pyramid = new CounterPyramid(series, start, width, Math.max(1, size));
+        pyramid.fStarted = size > 0 || firstSample != null;
+        System.arraycopy(last, 0, pyramid.fLast, 0, last.length);
+        pyramid.fHasLast = hasLast;
+        pyramid.fFirst = firstSample;
+        pyramid.fFirstTime = firstTime;
+        Level level = pyramid.fLevels.get(0);
+        level.size = size;
+        for (int i = 0; i < size; i++) {
+            level.count[i] = in.readLong();
+        }
+        for (int s = 0; s < series.length; s++) {
+            for (int i = 0; i < size; i++) {
+                level.sum[s][i] = in.readLong();
+                level.min[s][i] = in.readLong();
+                level.max[s][i] = in.readLong();
+            }
+        }
+        int nbBlocks = in.readInt();
+        if (nbBlocks < 0 || nbBlocks > MAX_BUCKETS / BLOCK_BUCKETS) {
+            return null;
+        }
+        for (int j = 0; j < nbBlocks; j++) {
+            QuantileSketch[] sketches = new QuantileSketch[series.length];
+            for (int s = 0; s < series.length; s++) {
+                sketches[s] = QuantileSketch.read(in);
+            }
+            pyramid.fBlocks.add(sketches);
+        }
+        return pyramid;
+    }
+
+    /* The part of a sum for a part of the width of its bucket */
+    private static long share(long sum, long part, long width) {
+        return Math.round(sum * ((double) part / width));
+    }
+
+    /* A level, merged from the finer ones if they changed since, null past the coarsest */
+    private Level getLevel(int k) {
+        for (int i = fNbValidLevels; i <= k; i++) {
+            Level finer = fLevels.get(i - 1);
+            if (finer.size <= 1) {
+                return null;
+            }
+            if (i == fLevels.size()) {
+                fLevels.add(new Level(fSeries.length, (finer.capacity() + 1) / 2));
+            }
+            Level level = fLevels.get(i);
+            if (level.capacity() < (finer.size + 1) / 2) {
+                level.grow((finer.capacity() + 1) / 2);
+            }
+            level.mergeFrom(finer);
+            fNbValidLevels = i + 1;
+        }
+        return fLevels.get(k);
+    }
+
+    /* The sketches of a block, created with the blocks before it */
+    private QuantileSketch[] getBlock(int block) {
+        while (fBlocks.size() <= block) {
+            QuantileSketch[] sketches = new QuantileSketch[fSeries.length];
+            for (int s = 0; s < sketches.length; s++) {
+                sketches[s] = new QuantileSketch();
+            }
+            fBlocks.add(sketches);
+        }
+        return fBlocks.get(block);
+    }
+
+    /* A level of blocks, merged from the finer ones if they changed since */
+    private List<QuantileSketch[]> getBlockLevel(int k) {
+        for (int i = fNbValidBlockLevels; i <= k; i++) {
+            List<QuantileSketch[]> finer = (i == 1) ? fBlocks : fBlockLevels.get(i - 2);
+            List<QuantileSketch[]> level = new ArrayList<>((finer.size() + 1) / 2);
+            for (int j = 0; j < finer.size(); j += 2) {
+                QuantileSketch[] sketches = new QuantileSketch[fSeries.length];
+                for (int s = 0; s < sketches.length; s++) {
+                    sketches[s] = new QuantileSketch();
+                    sketches[s].merge(finer.get(j)[s]);
+                    if (j + 1 < finer.size()) {
+                        sketches[s].merge(finer.get(j + 1)[s]);
+                    }
+                }
+                level.add(sketches);
+            }
+            if (i - 1 < fBlockLevels.size()) {
+                fBlockLevels.set(i - 1, level);
+            } else {
+                fBlockLevels.add(level);
+            }
+            fNbValidBlockLevels = i + 1;
+        }
+        return (k == 0) ? fBlocks : fBlockLevels.get(k - 1);
+    }
+
+    /* Merge the buckets of the finest level two by two, and their blocks */
+    private void coarsen() {
+        Level finest = fLevels.get(0);
+        Level merged = new Level(fSeries.length, finest.capacity());
+        merged.mergeFrom(finest);
+        fLevels.clear();
+        fLevels.add(merged);
+        fNbValidLevels = 1;
+        fNbValidBlockLevels = 1;
+        fWidth *= 2;
+        List<QuantileSketch[]> blocks = new ArrayList<>(fBlocks);
+        fBlocks.clear();
+        for (int j = 0; j < blocks.size(); j += 2) {
+            QuantileSketch[] sketches = blocks.get(j);
+            if (j + 1 < blocks.size()) {
+                for (int s = 0; s < sketches.length; s++) {
+                    sketches[s].merge(blocks.get(j + 1)[s]);
+                }
+            }
+            fBlocks.add(sketches);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
+import org.eclipse.tracecompass.statesystem.core.statevalue.TmfStateValue;
+
+/**
+ * State system made of the histories of consecutive time partitions of a
+ * trace, each built independently by its own state provider.
+ *
+ * The partitions have the same attributes, with the same quarks. The values
+ * of most attributes do not depend on the events before the partition, and
+ * are returned as they are. The running values, like a count of samples or a
+ * running sum, start again from 0 in every partition; the value at the end of
+ * the partitions before is added to them. The last interval of a partition is
+ * stretched to the start of the next one.
+ *
+ * The partitions are appended as they are built, so the history can be
+ * queried while the last ones are still being built: it ends at the end of
+ * the last partition appended. It is built once {@link #setBuilt(boolean)}
+ * is called.
+ */
+final class PartitionedStateSystem implements ITmfStateSystem {
+
+    private final String fSsid;
+    private final List<Integer> fRunningQuarks;
+
+    /* index in the offsets of the running attributes, -1 for the others */
+    private final int[] fRunningIndex;
+
+    /* the partitions appended so far, replaced as a whole by append() */
+    private volatile Partitions fParts;
+
+    private final CountDownLatch fBuilt = new CountDownLatch(1);
+    private volatile boolean fCancelled;
+
+    /* The partitions, their start times and the running values before them */
+    private static final class Partitions {
+        final ITmfStateSystem[] fPartitions;
+        final long[] fStarts;
+        final long[][] fOffsets;
+
+        Partitions(ITmfStateSystem[] partitions, long[] starts, long[][] offsets) {
+            fPartitions = partitions;
+            fStarts = starts;
+            fOffsets = offsets;
+        }
+    }
+
+    /**
+     * Constructor, with the partitions built so far
+     *
+     * @param ssid
+     *            the ID of the state system
+     * @param partitions
+     *            the histories of the first partitions, in order of time, at
+     *            least one
+     * @param runningQuarks
+     *            the quarks of the running attributes
+     * @throws AttributeNotFoundException
+     *             if a running attribute is not in the partitions
+     * @throws StateSystemDisposedException
+     *             if a partition was disposed
+     */
+    PartitionedStateSystem(String ssid, List<ITmfStateSystem> partitions, List<Integer> runningQuarks)
+            throws AttributeNotFoundException, StateSystemDisposedException {
+        fSsid = ssid;
+        fRunningQuarks = new ArrayList<>(runningQuarks);
+        fRunningIndex = new int[partitions.get(0).getNbAttributes()];
+        Arrays.fill(fRunningIndex, -1);
+        for (int i = 0; i < runningQuarks.size(); i++) {
+            fRunningIndex[runningQuarks.get(i)] = i;
+        }
+        fParts = new Partitions(new ITmfStateSystem[0], new long[0], new long[0][]);
+        append(partitions);
+    }
+
+    /**
+     * Append the partitions that follow the ones already in the history, once
+     * they are built
+     *
+     * @param partitions
+     *            the histories of the partitions, in order of time
+     * @throws AttributeNotFoundException
+     *             if a running attribute is not in the partitions
+     * @throws StateSystemDisposedException
+     *             if a partition was disposed
+     */
+    synchronized void append(List<ITmfStateSystem> partitions)
+            throws AttributeNotFoundException, StateSystemDisposedException {
+        Partitions parts = fParts;
+        int nbPartitions = parts.fPartitions.length + partitions.size();
+        ITmfStateSystem[] all = Arrays.copyOf(parts.fPartitions, nbPartitions);
+        long[] starts = Arrays.copyOf(parts.fStarts, nbPartitions);
+        long[][] offsets = Arrays.copyOf(parts.fOffsets, nbPartitions);
+        for (int p = parts.fPartitions.length; p < nbPartitions; p++) {
+            all[p] = partitions.get(p - parts.fPartitions.length);
+            starts[p] = all[p].getStartTime();
+            offsets[p] = new long[fRunningQuarks.size()];
+            if (p == 0) {
+                continue;
+            }
+            ITmfStateSystem previous = all[p - 1];
+            for (int i = 0; i < fRunningQuarks.size(); i++) {
+                ITmfStateValue value = previous.querySingleState(previous.getCurrentEndTime(), fRunningQuarks.get(i)).getStateValue();
+                long last = value.isNull() ? 0 : value.unboxLong();
+                offsets[p][i] = TmfStatisticsTotalsModule2.saturatedAdd(offsets[p - 1][i], last);
+            }
+        }
+        fParts = new Partitions(all, starts, offsets);
+    }
+
+    /**
+     * Mark the history as built, once the last partition is appended or the
+     * build stopped
+     *
+     * @param completed
+     *            false if the build was cancelled or failed
+     */
+    void setBuilt(boolean completed) {
+        fCancelled = !completed;
+        fBuilt.countDown();
+    }
+
+    @Override
+    public String getSSID() {
+        return fSsid;
+    }
+
+    @Override
+    public long getStartTime() {
+        return fParts.fPartitions[0].getStartTime();
+    }
+
+    @Override
+    public long getCurrentEndTime() {
+        ITmfStateSystem[] partitions = fParts.fPartitions;
+        return partitions[partitions.length - 1].getCurrentEndTime();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        if (fCancelled) {
+            return true;
+        }
+        for (ITmfStateSystem partition : fParts.fPartitions) {
+            if (partition.isCancelled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean waitUntilBuilt() {
+        try {
+            fBuilt.await();
+        } catch (InterruptedException e) {
+            return false;
+        }
+        boolean built = !fCancelled;
+        for (ITmfStateSystem partition : fParts.fPartitions) {
+            built &= partition.waitUntilBuilt();
+        }
+        return built;
+    }
+
+    @Override
+    public boolean waitUntilBuilt(long timeout) {
+        try {
+            if (!fBuilt.await(timeout, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            return false;
+        }
+        boolean built = !fCancelled;
+        for (ITmfStateSystem partition : fParts.fPartitions) {
+            built &= partition.waitUntilBuilt(timeout);
+        }
+        return built;
+    }
+
+    @Override
+    public void dispose() {
+        for (ITmfStateSystem partition : fParts.fPartitions) {
+            partition.dispose();
+        }
+        /* nothing will be appended anymore */
+        if (fBuilt.getCount() > 0) {
+            setBuilt(false);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Attributes, the same in every partition
+    // ------------------------------------------------------------------------
+
+    @Override
+    public int getNbAttributes() {
+        return fParts.fPartitions[0].getNbAttributes();
+    }
+
+    @Override
+    public int getQuarkAbsolute(String... attribute) throws AttributeNotFoundException {
+        return fParts.fPartitions[0].getQuarkAbsolute(attribute);
+    }
+
+    @Override
+    public int getQuarkRelative(int startingNodeQuark, String... subPath) throws AttributeNotFoundException {
+        return fParts.fPartitions[0].getQuarkRelative(startingNodeQuark, subPath);
+    }
+
+    @Override
+    public List<Integer> getSubAttributes(int quark, boolean recursive) throws AttributeNotFoundException {
+        return fParts.fPartitions[0].getSubAttributes(quark, recursive);
+    }
+
+    @Override
+    public List<Integer> getSubAttributes(int quark, boolean recursive, String pattern) throws AttributeNotFoundException {
+        return fParts.fPartitions[0].getSubAttributes(quark, recursive, pattern);
+    }
+
+    @Override
+    public List<Integer> getQuarks(String... pattern) {
+        return fParts.fPartitions[0].getQuarks(pattern);
+    }
+
+    @Override
+    public String getAttributeName(int attributeQuark) {
+        return fParts.fPartitions[0].getAttributeName(attributeQuark);
+    }
+
+    @Override
+    public String getFullAttributePath(int attributeQuark) {
+        return fParts.fPartitions[0].getFullAttributePath(attributeQuark);
+    }
+
+    @Override
+    public int getParentAttributeQuark(int attributeQuark) {
+        return fParts.fPartitions[0].getParentAttributeQuark(attributeQuark);
+    }
+
+    // ------------------------------------------------------------------------
+    // Queries
+    // ------------------------------------------------------------------------
+
+    @Override
+    public ITmfStateValue queryOngoingState(int attributeQuark) throws AttributeNotFoundException {
+        Partitions parts = fParts;
+        int last = parts.fPartitions.length - 1;
+        return offset(parts, last, attributeQuark, parts.fPartitions[last].queryOngoingState(attributeQuark));
+    }
+
+    @Override
+    public long getOngoingStartTime(int attribute) throws AttributeNotFoundException {
+        ITmfStateSystem[] partitions = fParts.fPartitions;
+        return partitions[partitions.length - 1].getOngoingStartTime(attribute);
+    }
+
+    @Override
+    public List<ITmfStateInterval> queryFullState(long t) throws StateSystemDisposedException {
+        Partitions parts = fParts;
+        int p = getPartition(parts, t);
+        List<ITmfStateInterval> intervals = parts.fPartitions[p].queryFullState(clamp(parts, p, t));
+        List<ITmfStateInterval> result = new ArrayList<>(intervals.size());
+        for (ITmfStateInterval interval : intervals) {
+            result.add(adjust(parts, p, interval));
+        }
+        return result;
+    }
+
+    @Override
+    public ITmfStateInterval querySingleState(long t, int attributeQuark)
+            throws AttributeNotFoundException, StateSystemDisposedException {
+        Partitions parts = fParts;
+        int p = getPartition(parts, t);
+        return adjust(parts, p, parts.fPartitions[p].querySingleState(clamp(parts, p, t), attributeQuark));
+    }
+
+    /* The partition of a time, the first or the last one out of the range */
+    private static int getPartition(Partitions parts, long t) {
+        int p = Arrays.binarySearch(parts.fStarts, t);
+        if (p < 0) {
+            p = -p - 2;
+        }
+        return Math.max(0, p);
+    }
+
+    /* A time between the end of a partition and the start of the next one is at its end */
+    private static long clamp(Partitions parts, int p, long t) {
+        if (p < parts.fPartitions.length - 1) {
+            return Math.min(t, parts.fPartitions[p].getCurrentEndTime());
+        }
+        return t;
+    }
+
+    /* An interval of a partition, with its running value and its end as in the whole history */
+    private ITmfStateInterval adjust(Partitions parts, int p, ITmfStateInterval interval) {
+        long end = interval.getEndTime();
+        if (p < parts.fPartitions.length - 1 && end >= parts.fPartitions[p].getCurrentEndTime()) {
+            end = Math.max(end, parts.fStarts[p + 1] - 1);
+        }
+        int quark = interval.getAttribute();
+        ITmfStateValue value = offset(parts, p, quark, interval.getStateValue());
+        if (end == interval.getEndTime() && value == interval.getStateValue()) {
+            return interval;
+        }
+        return new TmfStateInterval(interval.getStartTime(), end, quark, value);
+    }
+
+    /* The value of an attribute in a partition, with the running values before it */
+    private ITmfStateValue offset(Partitions parts, int p, int quark, ITmfStateValue value) {
+        int index = (quark < fRunningIndex.length) ? fRunningIndex[quark] : -1;
+        if (index < 0 || parts.fOffsets[p][index] == 0 || value.isNull()) {
+            return value;
+        }
+        return TmfStateValue.newValueLong(TmfStatisticsTotalsModule2.saturatedAdd(parts.fOffsets[p][index], value.unboxLong()));
+    }
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch of the distribution of long values, giving quantiles with
+ * a bounded relative error.
+ *
+ * The values are counted in buckets whose bounds grow geometrically, so any
+ * value is within {@link #RELATIVE_ACCURACY} of the middle of its bucket.
+ * Two sketches are merged by adding their bucket counts. The buckets of the
+ * positive and of the negative values are kept in arrays covering only the
+ * range of buckets seen, counter increases span a few powers of two.
+ */
+final class QuantileSketch {
+
+    /** Relative error of a quantile */
+    static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final long[] EMPTY = new long[0];
+
+    private long fCount;
+    private long fZeroCount;
+    /* counts of the buckets fPositiveOffset, fPositiveOffset + 1, ... */
+    private long[] fPositive = EMPTY;
+    private int fPositiveOffset;
+    /* same for the absolute value of the negative values */
+    private long[] fNegative = EMPTY;
+    private int fNegativeOffset;
+
+    /**
+     * Add a value
+     *
+     * @param value
+     *            the value
+     */
+    void add(long value) {
+        fCount++;
+        if (value == 0) {
+            fZeroCount++;
+        } else if (value > 0) {
+            int key = key(value);
+            fPositiveOffset = (fPositive.length == 0) ? key : fPositiveOffset;
+            fPositive = ensure(fPositive, fPositiveOffset, key);
+            fPositiveOffset = Math.min(fPositiveOffset, key);
+            fPositive[key - fPositiveOffset]++;
+        } else {
+            int key = key(-(double) value);
+            fNegativeOffset = (fNegative.length == 0) ? key : fNegativeOffset;
+            fNegative = ensure(fNegative, fNegativeOffset, key);
+            fNegativeOffset = Math.min(fNegativeOffset, key);
+            fNegative[key - fNegativeOffset]++;
+        }
+    }
+
+    /**
+     * Add the values of another sketch to this one
+     *
+     * @param other
+     *            the other sketch, it is not modified
+     */
+    void merge(QuantileSketch other) {
+        fCount += other.fCount;
+        fZeroCount += other.fZeroCount;
+        if (other.fPositive.length > 0) {
+            int first = other.fPositiveOffset;
+            int last = first + other.fPositive.length - 1;
+            fPositiveOffset = (fPositive.length == 0) ? first : fPositiveOffset;
+            fPositive = ensure(fPositive, fPositiveOffset, first);
+            fPositiveOffset = Math.min(fPositiveOffset, first);
+            fPositive = ensure(fPositive, fPositiveOffset, last);
+            for (int i = 0; i < other.fPositive.length; i++) {
+                fPositive[first + i - fPositiveOffset] += other.fPositive[i];
+            }
+        }
+        if (other.fNegative.length > 0) {
+            int first = other.fNegativeOffset;
+            int last = first + other.fNegative.length - 1;
+            fNegativeOffset = (fNegative.length == 0) ? first : fNegativeOffset;
+            fNegative = ensure(fNegative, fNegativeOffset, first);
+            fNegativeOffset = Math.min(fNegativeOffset, first);
+            fNegative = ensure(fNegative, fNegativeOffset, last);
+            for (int i = 0; i < other.fNegative.length; i++) {
+                fNegative[first + i - fNegativeOffset] += other.fNegative[i];
+            }
+        }
+    }
+
+    /**
+     * Get the number of values
+     *
+     * @return the number of values added to the sketch or to the sketches
+     *         merged in it
+     */
+    long getCount() {
+        return fCount;
+    }
+
+    /**
+     * Get a quantile of the values
+     *
+     * @param q
+     *            the quantile, from 0 to 1
+     * @return the estimated value, NaN if the sketch is empty
+     */
+    double getQuantile(double q) {
+        if (fCount == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (Math.max(0, Math.min(1, q)) * (fCount - 1));
+        /* the negative values, from the largest absolute value down */
+        for (int i = fNegative.length - 1; i >= 0; i--) {
+            rank -= fNegative[i];
+            if (rank < 0) {
+                return -value(fNegativeOffset + i);
+            }
+        }
+        rank -= fZeroCount;
+        if (rank < 0) {
+            return 0;
+        }
+        for (int i = 0; i < fPositive.length; i++) {
+            rank -= fPositive[i];
+            if (rank < 0) {
+                return value(fPositiveOffset + i);
+            }
+        }
+        return value(fPositiveOffset + fPositive.length - 1);
+    }
+
+    /**
+     * Write the sketch
+     *
+     * @param out
+     *            the output to write to
+     * @throws IOException
+     *             if it could not be written
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(fCount);
+        out.writeLong(fZeroCount);
+        writeStore(out, fPositive, fPositiveOffset);
+        writeStore(out, fNegative, fNegativeOffset);
+    }
+
+    /**
+     * Read a sketch written by {@link #write}
+     *
+     * @param in
+     *            the input to read from
+     * @return the sketch
+     * @throws IOException
+     *             if it could not be read
+     */
+    static QuantileSketch read(DataInput in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.fCount = in.readLong();
+        sketch.fZeroCount = in.readLong();
+        sketch.fPositiveOffset = in.readInt();
+        sketch.fPositive = readStore(in);
+        sketch.fNegativeOffset = in.readInt();
+        sketch.fNegative = readStore(in);
+        return sketch;
+    }
+
+    private static void writeStore(DataOutput out, long[] store, int offset) throws IOException {
+        out.writeInt(offset);
+        out.writeInt(store.length);
+        for (long count : store) {
+            out.writeLong(count);
+        }
+    }
+
+    private static long[] readStore(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 1 << 16) {
+            throw new IOException("Invalid sketch"); //$NON-NLS-1$
+        }
+        long[] store = (length == 0) ? EMPTY : new long[length];
+        for (int i = 0; i < length; i++) {
+            store[i] = in.readLong();
+        }
+        return store;
+    }
+
+    /* The bucket of a positive value */
+    private static int key(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    /* The middle of a bucket, within the relative accuracy of its values */
+    private static double value(int key) {
+        return 2 * Math.pow(GAMMA, key) / (GAMMA + 1);
+    }
+
+    /*
+     * A store covering a key, the same one if it already does. An empty store
+     * is given the key as offset by the caller, a store growing down has its
+     * offset moved to the key by the caller. A store covers just the range of
+     * its keys, it grows at most once per bucket.
+     */
+    private static long[] ensure(long[] store, int offset, int key) {
+        if (store.length == 0) {
+            return new long[key - offset + 1];
+        }
+        if (key < offset) {
+            long[] grown = new long[store.length + offset - key];
+            System.arraycopy(store, 0, grown, offset - key, store.length);
+            return grown;
+        }
+        if (key >= offset + store.length) {
+            return Arrays.copyOf(store, key - offset + 1);
+        }
+        return store;
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Progress of a statistics history built in time partitions: the events
+ * covered by every partition whose history is complete, the time of the last
+ * of these events, and the summary pyramid of all of them.
+ *
+ * The pyramid holds the last sample of the counters, so a new partition can
+ * continue from it. The running values of the partitions are not saved, they
+ * are read at the end of their histories.
+ *
+ * The checkpoint is written after the histories of its partitions are closed,
+ * and replaces the previous one once complete: the partitions it lists are
+ * always valid, whenever the build is interrupted.
+ */
+final class StatisticsCheckpoint {
+
+    private static final int MAGIC = 0x53434b50; /* SCKP */
+    private static final int FILE_VERSION = 1;
+
+    /* Partitions in a checkpoint, at most */
+    private static final int MAX_PARTITIONS = 1 << 16;
+
+    private final long[] fEnds;
+    private final long fLastTime;
+    private final CounterPyramid fPyramid;
+
+    /**
+     * Constructor
+     *
+     * @param ends
+     *            the rank after the last event of every partition, in order
+     * @param lastTime
+     *            the time of the last event of the last partition, in
+     *            nanoseconds
+     * @param pyramid
+     *            the summary of the events of the partitions
+     */
+    StatisticsCheckpoint(long[] ends, long lastTime, CounterPyramid pyramid) {
+        fEnds = ends;
+        fLastTime = lastTime;
+        fPyramid = pyramid;
+    }
+
+    /**
+     * Get the number of partitions
+     *
+     * @return the number of partitions whose history is complete
+     */
+    int getNbPartitions() {
+        return fEnds.length;
+    }
+
+    /**
+     * Get the events covered by the partitions before one
+     *
+     * @param partition
+     *            the index of a partition, up to the number of partitions
+     * @return the rank of its first event
+     */
+    long getStart(int partition) {
+        return (partition == 0) ? 0 : fEnds[partition - 1];
+    }
+
+    /**
+     * Get the number of events covered
+     *
+     * @return the rank after the last event of the last partition
+     */
+    long getNbEvents() {
+        return getStart(fEnds.length);
+    }
+
+    /**
+     * Get the time of the last event covered, to check that the trace did not
+     * change since
+     *
+     * @return the time of the event in nanoseconds
+     */
+    long getLastTime() {
+        return fLastTime;
+    }
+
+    /**
+     * Get the summary of the events covered
+     *
+     * @return the pyramid, to continue with the next events
+     */
+    CounterPyramid getPyramid() {
+        return fPyramid;
+    }
+
+    /**
+     * Save the checkpoint
+     *
+     * @param file
+     *            the file to write, it is replaced once complete
+     * @param version
+     *            the version of the state provider that built the partitions
+     * @throws IOException
+     *             if the file could not be written
+     */
+    void save(File file, int version) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(version);
+            out.writeInt(fEnds.length);
+            for (long end : fEnds) {
+                out.writeLong(end);
+            }
+            out.writeLong(fLastTime);
+            fPyramid.write(out, version);
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a saved checkpoint
+     *
+     * @param file
+     *            the saved checkpoint
+     * @param version
+     *            the version of the state provider
+     * @return the checkpoint, or null if it does not exist, is not valid or
+     *         was saved by another version of the state provider
+     */
+    static StatisticsCheckpoint load(File file, int version) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FILE_VERSION || in.readInt() != version) {
+                return null;
+            }
+            int nbPartitions = in.readInt();
+            if (nbPartitions <= 0 || nbPartitions > MAX_PARTITIONS) {
+                return null;
+            }
+            long[] ends = new long[nbPartitions];
+            for (int p = 0; p < nbPartitions; p++) {
+                ends[p] = in.readLong();
+                if (ends[p] <= ((p == 0) ? 0 : ends[p - 1])) {
+                    return null;
+                }
+            }
+            long lastTime = in.readLong();
+            CounterPyramid pyramid = CounterPyramid.read(in, version);
+            return (pyramid == null) ? null : new StatisticsCheckpoint(ends, lastTime, pyramid);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
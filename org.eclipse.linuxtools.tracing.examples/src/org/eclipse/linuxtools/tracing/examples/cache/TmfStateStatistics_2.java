@@ -13,14 +13,15 @@
 
 package org.eclipse.linuxtools.tracing.examples.cache;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
 import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
 import org.eclipse.tracecompass.tmf.core.statistics.ITmfStatistics;
 
@@ -46,6 +47,9 @@ public class TmfStateStatistics_2 implements ITmfStatistics {
     /** The cache access totals state system */
     private final ITmfStateSystem totalsStats;
 
+    /** The summary of the same values at several resolutions, if available */
+    private volatile CounterPyramid fPyramid;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -69,6 +73,18 @@ public class TmfStateStatistics_2 implements ITmfStatistics {
         return totalsStats;
     }
 
+    /**
+     * Answer the histograms from a summary pyramid when their buckets are wide
+     * enough, instead of querying the state system at every border.
+     *
+     * @param pyramid
+     *            The pyramid built with the state system, or null to always
+     *            query the state system
+     */
+    void setPyramid(CounterPyramid pyramid) {
+        fPyramid = pyramid;
+    }
+
 
     // ------------------------------------------------------------------------
     // ITmfStatistics
@@ -81,39 +97,294 @@ public class TmfStateStatistics_2 implements ITmfStatistics {
 
     @Override
     public List<Long> histogramQuery(final long start, final long end, final int nb) {
-        final List<Long> list = new LinkedList<>();
+        return toList(histogramQuery(Attributes.TOTAL, getQuark(Attributes.TOTAL), start, end, nb));
+    }
+
+    /**
+     * Get the number of events in every bucket of a time range, like
+     * {@link #histogramQuery(long, long, int)} but without boxing the counts.
+     *
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @param nb
+     *            The number of buckets
+     * @return The number of events in each bucket, all 0 if the statistics are
+     *         not available
+     */
+    public long[] bulkHistogramQuery(final long start, final long end, final int nb) {
+        long[] counts = histogramQuery(Attributes.TOTAL, getQuark(Attributes.TOTAL), start, end, nb);
+        return (counts != null) ? counts : new long[nb];
+    }
+
+    /**
+     * Get the increase of a counter in every bucket of a time range, like
+     * {@link #histogramQuery(long, long, int)} does for the events.
+     *
+     * @param counter
+     *            The name of the counter column
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @param nb
+     *            The number of buckets
+     * @return The increase of the counter in each bucket, empty if the trace
+     *         has no such counter
+     */
+    public List<Long> histogramQuery(String counter, final long start, final long end, final int nb) {
+        return toList(histogramQuery(counter, getQuark(Attributes.COUNTERS, counter), start, end, nb));
+    }
+
+    /**
+     * Get the increase of a counter in every bucket of a time range, without
+     * boxing the values.
+     *
+     * @param counter
+     *            The name of the counter column
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @param nb
+     *            The number of buckets
+     * @return The increase of the counter in each bucket, all 0 if the trace
+     *         has no such counter
+     */
+    public long[] bulkHistogramQuery(String counter, final long start, final long end, final int nb) {
+        long[] counts = histogramQuery(counter, getQuark(Attributes.COUNTERS, counter), start, end, nb);
+        return (counts != null) ? counts : new long[nb];
+    }
+
+    /*
+     * The histogram comes from the coarsest level of the pyramid that has
+     * several buckets per bucket of the histogram. Otherwise the borders of
+     * the buckets are visited in order, and an interval of the history is
+     * reused as long as it covers the next border, so only the borders that
+     * fall in a new interval cost a query. Null if the attribute was not
+     * recorded or the state system is cancelled.
+     */
+    private long[] histogramQuery(String series, final int quark, final long start, final long end, final int nb) {
+        if (totalsStats.isCancelled() || quark < 0 || nb <= 0) {
+            return null;
+        }
+        CounterPyramid pyramid = fPyramid;
+        int index = (pyramid == null || series == null) ? -1 : pyramid.getSeries(series);
+        if (index >= 0) {
+            long[] counts = pyramid.histogram(index, start, end, nb);
+            if (counts != null) {
+                return counts;
+            }
+        }
+        final long[] counts = new long[nb];
         final long increment = (end - start) / nb;
 
-        if (totalsStats.isCancelled()) {
-            return list;
+        try {
+            ITmfStateInterval interval = null;
+            long prevTotal = 0;
+            if (start != totalsStats.getStartTime()) {
+                interval = queryAt(quark, start, interval);
+                prevTotal = valueOf(interval);
+            }
+            long curTime = start + increment;
+            for (int i = 0; i < nb; i++) {
+                /*
+                 * The last bucket is stretched to the end time of the requested
+                 * range, in case it got truncated down.
+                 */
+                interval = queryAt(quark, (i == nb - 1) ? end : curTime, interval);
+                long curTotal = valueOf(interval);
+                counts[i] = curTotal - prevTotal;
+
+                curTime += increment;
+                prevTotal = curTotal;
+            }
+        } catch (StateSystemDisposedException e) {
+            /* Assume there is no (more) events, the rest of the buckets are empty. */
+        } catch (AttributeNotFoundException e) {
+            e.printStackTrace();
         }
+        return counts;
+    }
 
-        /*
-         * We will do one state system query per "border", and save the
-         * differences between each border.
-         */
-        long prevTotal = (start == totalsStats.getStartTime()) ? 0 : getEventCountAt(start);
-        long curTime = start + increment;
+    /* The interval of an attribute at a time, the previous one if it covers it */
+    private ITmfStateInterval queryAt(int quark, long timestamp, ITmfStateInterval previous)
+            throws AttributeNotFoundException, StateSystemDisposedException {
+        /* Make sure the target time is within the range of the history */
+        long ts = checkStartTime(timestamp, totalsStats);
+        ts = checkEndTime(ts, totalsStats);
+        if (previous != null && previous.getStartTime() <= ts && ts <= previous.getEndTime()) {
+            return previous;
+        }
+        return totalsStats.querySingleState(ts, quark);
+    }
 
-        long curTotal, count;
-        for (int i = 0; i < nb - 1; i++) {
-            curTotal = getEventCountAt(curTime);
-            count = curTotal - prevTotal;
-            list.add(count);
+    private static long valueOf(ITmfStateInterval interval) {
+        ITmfStateValue stateValue = interval.getStateValue();
+        return stateValue.isNull() ? 0 : stateValue.unboxLong();
+    }
 
-            curTime += increment;
-            prevTotal = curTotal;
+    private static List<Long> toList(long[] counts) {
+        final List<Long> list = new ArrayList<>((counts != null) ? counts.length : 0);
+        if (counts != null) {
+            for (long count : counts) {
+                list.add(count);
+            }
         }
+        return list;
+    }
 
-        /*
-         * For the last bucket, we'll stretch its end time to the end time of
-         * the requested range, in case it got truncated down.
-         */
-        curTotal = getEventCountAt(end);
-        count = curTotal - prevTotal;
-        list.add(count);
+    /**
+     * Get the sum of the samples of the total, or of a counter, in a time
+     * range. It takes one query at each end of the range, whatever its width.
+     *
+     * @param series
+     *            The name of the counter column, or {@link Attributes#TOTAL}
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @return The sum of the samples, 0 if there is no such series, or
+     *         Long.MAX_VALUE (Long.MIN_VALUE) if the running sum overflowed
+     */
+    public long getSumInRange(String series, long start, long end) {
+        return getRangeDifference(getQuark(Attributes.PREFIX, series), start, end);
+    }
 
-        return list;
+    /**
+     * Get the number of samples in a time range
+     *
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @return The number of samples
+     */
+    public long getSamplesInRange(long start, long end) {
+        return getRangeDifference(getQuark(Attributes.SAMPLES), start, end);
+    }
+
+    /**
+     * Get the average of the samples of the total, or of a counter, in a time
+     * range
+     *
+     * @param series
+     *            The name of the counter column, or {@link Attributes#TOTAL}
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @return The average, NaN if there is no sample in the range
+     */
+    public double getAverageInRange(String series, long start, long end) {
+        long count = getSamplesInRange(start, end);
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return (double) getSumInRange(series, start, end) / count;
+    }
+
+    /**
+     * Get the minimum, maximum and quantiles of the increases of the total,
+     * or of a counter, between two samples in a time range, for example the
+     * peak and 99th percentile branch miss rate of a region. It is answered
+     * from the summary pyramid, without reading the trace or the history.
+     *
+     * @param series
+     *            The name of the counter column, or {@link Attributes#TOTAL}
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @return The aggregate, or null if there is no such series or no
+     *         pyramid was built for the trace
+     */
+    public CounterAggregate getAggregateInRange(String series, long start, long end) {
+        CounterPyramid pyramid = fPyramid;
+        int index = (pyramid == null) ? -1 : pyramid.getSeries(series);
+        if (index < 0) {
+            return null;
+        }
+        return pyramid.aggregate(index, start, end);
+    }
+
+    /**
+     * Get the sum of the samples of the total, or of a counter, in every
+     * bucket of a time range, from the running sum at the borders.
+     *
+     * @param series
+     *            The name of the counter column, or {@link Attributes#TOTAL}
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @param nb
+     *            The number of buckets
+     * @return The sum in each bucket, all 0 if there is no such series
+     */
+    public long[] bulkSumHistogramQuery(String series, final long start, final long end, final int nb) {
+        /* the pyramid summarizes the increases of the samples, not the samples */
+        long[] sums = histogramQuery(null, getQuark(Attributes.PREFIX, series), start, end, nb);
+        return (sums != null) ? sums : new long[nb];
+    }
+
+    /*
+     * The difference of a running value between the end of a range and just
+     * before its start, saturated if the value is.
+     */
+    private long getRangeDifference(int quark, long start, long end) {
+        if (quark < 0) {
+            return 0;
+        }
+        long endValue = getValueAt(quark, end);
+        if (endValue == Long.MAX_VALUE || endValue == Long.MIN_VALUE) {
+            return endValue;
+        }
+        long startValue = (start == totalsStats.getStartTime()) ? 0 : getValueAt(quark, start - 1);
+        return endValue - startValue;
+    }
+
+    /**
+     * Get the names of the counters recorded for a counter trace
+     *
+     * @return The names of the counter columns, empty for other traces
+     */
+    public List<String> getCounters() {
+        List<String> counters = new ArrayList<>();
+        int parent = getQuark(Attributes.COUNTERS);
+        if (parent < 0) {
+            return counters;
+        }
+        try {
+            for (int quark : totalsStats.getSubAttributes(parent, false)) {
+                counters.add(totalsStats.getAttributeName(quark));
+            }
+        } catch (AttributeNotFoundException e) {
+            e.printStackTrace();
+        }
+        return counters;
+    }
+
+    /**
+     * Get the increase of a counter in a time range, like
+     * {@link #getEventsInRange} does for the events.
+     *
+     * @param counter
+     *            The name of the counter column
+     * @param start
+     *            Start time of the range
+     * @param end
+     *            End time of the range
+     * @return The increase of the counter, 0 if the trace has no such counter
+     */
+    public long getCounterInRange(String counter, long start, long end) {
+        int quark = getQuark(Attributes.COUNTERS, counter);
+        if (quark < 0) {
+            return 0;
+        }
+        long startCount = (start == totalsStats.getStartTime()) ? 0 : getValueAt(quark, start - 1);
+        return getValueAt(quark, end) - startCount;
     }
 
     @Override
@@ -157,17 +428,12 @@ public class TmfStateStatistics_2 implements ITmfStatistics {
     // ------------------------------------------------------------------------
 
     private long getEventCountAt(long timestamp) {
-        /* Make sure the target time is within the range of the history */
-        long ts = checkStartTime(timestamp, totalsStats);
-        ts = checkEndTime(ts, totalsStats);
+        return getValueAt(getQuark(Attributes.TOTAL), timestamp);
+    }
 
+    private long getValueAt(int quark, long timestamp) {
         try {
-            final int quark = totalsStats.getQuarkAbsolute(Attributes.TOTAL);
-            ITmfStateValue stateValue = totalsStats.querySingleState(ts, quark).getStateValue();
-
-            long count = stateValue.unboxLong();
-            return count;
-
+            return valueOf(queryAt(quark, timestamp, null));
         } catch (StateSystemDisposedException e) {
             /* Assume there is no (more) events, nothing will be put in the map. */
         } catch (AttributeNotFoundException e) {
@@ -177,6 +443,15 @@ public class TmfStateStatistics_2 implements ITmfStatistics {
         return 0;
     }
 
+    /* The quark of an attribute, -1 if it was not recorded */
+    private int getQuark(String... attribute) {
+        try {
+            return totalsStats.getQuarkAbsolute(attribute);
+        } catch (AttributeNotFoundException e) {
+            return -1;
+        }
+    }
+
     private static long checkStartTime(long initialStart, ITmfStateSystem ss) {
         long start = initialStart;
         if (start < ss.getStartTime()) {
@@ -199,6 +474,15 @@ public class TmfStateStatistics_2 implements ITmfStatistics {
     public static class Attributes {
         /** Total nb of events */
         public static final String TOTAL = "cache_access"; //$NON-NLS-1$
+
+        /** Parent of the value of every counter column */
+        public static final String COUNTERS = "counters"; //$NON-NLS-1$
+
+        /** Number of samples so far */
+        public static final String SAMPLES = "samples"; //$NON-NLS-1$
+
+        /** Parent of the running sum of the total and of every counter */
+        public static final String PREFIX = "prefix"; //$NON-NLS-1$
     }
 
 	@Override
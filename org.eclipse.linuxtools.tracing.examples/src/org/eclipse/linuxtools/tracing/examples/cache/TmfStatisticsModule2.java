@@ -22,7 +22,6 @@ import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.tmf.core.analysis.TmfAbstractAnalysisModule;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfAnalysisModuleWithStateSystems;
-import org.eclipse.tracecompass.tmf.core.statesystem.TmfStateSystemAnalysisModule;
 import org.eclipse.tracecompass.tmf.core.statistics.ITmfStatistics;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 
@@ -40,7 +39,7 @@ public class TmfStatisticsModule2 extends TmfAbstractAnalysisModule
     /** The trace's statistics */
     private ITmfStatistics fStatistics = null;
 
-    private final TmfStateSystemAnalysisModule totalsModule = new TmfStatisticsTotalsModule2();
+    private final TmfStatisticsTotalsModule2 totalsModule = new TmfStatisticsTotalsModule2();
 
     private final CountDownLatch fInitialized = new CountDownLatch(1);
 
@@ -94,12 +93,22 @@ public class TmfStatisticsModule2 extends TmfAbstractAnalysisModule
          * have to assign the trace ourselves. Very important to do so before
          * calling schedule()!
          */
+        forwardParameter(TmfStatisticsTotalsModule2.IN_MEMORY_EVENTS);
+        forwardParameter(TmfStatisticsTotalsModule2.PARTIAL_EVENTS);
         if (!totalsModule.setTrace(trace)) {
             return false;
         }
         return true;
     }
 
+    /* The thresholds of the backend are set on this module by the extension */
+    private void forwardParameter(String name) {
+        Object value = getParameter(name);
+        if (value != null) {
+            totalsModule.setParameter(name, value);
+        }
+    }
+
     @Override
     protected boolean executeAnalysis(IProgressMonitor monitor) throws TmfAnalysisException {
         ITmfTrace trace = getTrace();
@@ -127,7 +136,8 @@ public class TmfStatisticsModule2 extends TmfAbstractAnalysisModule
             return false;
         }
 
-        fStatistics = new TmfStateStatistics_2(totalsSS);
+        TmfStateStatistics_2 statistics = new TmfStateStatistics_2(totalsSS);
+        fStatistics = statistics;
 
         /* fStatistics is now set, consider this module initialized */
         fInitialized.countDown();
@@ -139,6 +149,9 @@ public class TmfStatisticsModule2 extends TmfAbstractAnalysisModule
         if (!(totalsModule.waitForCompletion(monitor))) {
             return false;
         }
+
+        /* The pyramid is complete with the state system */
+        statistics.setPyramid(totalsModule.getPyramid());
         return true;
     }
 
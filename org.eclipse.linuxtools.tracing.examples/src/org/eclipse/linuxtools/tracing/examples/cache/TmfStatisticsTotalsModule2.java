@@ -12,20 +12,49 @@
 
 package org.eclipse.linuxtools.tracing.examples.cache;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.linuxtools.tracing.examples.Activator;
+import org.eclipse.linuxtools.tracing.examples.ICounterEvent;
+import org.eclipse.linuxtools.tracing.examples.ICounterTrace;
+import org.eclipse.linuxtools.tracing.examples.IGrowingTrace;
 import org.eclipse.linuxtools.tracing.examples.cache.TmfStateStatistics_2.Attributes;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
 import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateValueTypeException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
+import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
 import org.eclipse.tracecompass.statesystem.core.statevalue.TmfStateValue;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.ITmfLostEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
 import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.TmfStateSystemAnalysisModule;
 import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTraceCompleteness;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
 /**
  * The analysis module building the "totals" statistics state system.
@@ -33,6 +62,30 @@ import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
  * It is not in the extension point (and as such, not registered in the
  * TmfAnalysisManager), as it is being handled by the TmfStatisticsModule.
  *
+ * The history of a complete counter trace is built in time partitions, a few
+ * at a time, each by its own state provider on a thread pool. The partitions
+ * are then queried as one state system, with the running values corrected by
+ * the ones at the end of the partitions before. It is available once the
+ * first round of partitions is built, or right away when partitions are
+ * opened from a checkpoint, and grows as the next rounds are built.
+ *
+ * A checkpoint is saved after every round of partitions. A build that was
+ * interrupted resumes from the last checkpoint, and the events appended to
+ * the trace since the last build go in new partitions: only the events that
+ * are not in a partition yet are read. A full history built as one before,
+ * while the trace was still being written for instance, becomes the first
+ * partition if it covers the first events of the trace.
+ *
+ * Only the history built in partitions resumes. A full history built as one
+ * is opened again as it is, the in-memory and partial histories are built
+ * again whenever the trace is opened.
+ *
+ * The backend of the history depends on the number of events of the trace:
+ * a small trace is kept in memory, a huge one gets a partial history. The
+ * thresholds are the {@link #IN_MEMORY_EVENTS} and {@link #PARTIAL_EVENTS}
+ * parameters. The chosen backend and its size are logged once the history is
+ * ready.
+ *
  * @author Alexandre Montplaisir
  */
 public class TmfStatisticsTotalsModule2 extends TmfStateSystemAnalysisModule {
@@ -44,6 +97,42 @@ public class TmfStatisticsTotalsModule2 extends TmfStateSystemAnalysisModule {
 
     private static final String NAME = "Cache Statistics, event totals"; //$NON-NLS-1$
 
+    private static final String PYRAMID_FILE_NAME = "cache-statistics-totals.pyr"; //$NON-NLS-1$
+
+    /**
+     * Parameter giving the number of events up to which the history is kept
+     * in memory instead of a file
+     */
+    public static final String IN_MEMORY_EVENTS = "inMemoryEvents"; //$NON-NLS-1$
+
+    /**
+     * Parameter giving the number of events from which the history is
+     * partial, keeping only checkpoints
+     */
+    public static final String PARTIAL_EVENTS = "partialEvents"; //$NON-NLS-1$
+
+    private static final long DEFAULT_IN_MEMORY_EVENTS = 100000;
+    private static final long DEFAULT_PARTIAL_EVENTS = 500000000;
+
+    /** Size of an interval of a history in memory, roughly */
+    private static final long INTERVAL_BYTES = 64;
+
+    /** Events in a time partition, at least */
+    private static final long PARTITION_MIN_EVENTS = 1000000;
+
+    /** Events in a time partition, at most, so an interrupted build loses few */
+    private static final long PARTITION_MAX_EVENTS = 20000000;
+
+    private static final int QUEUE_SIZE = 10000;
+
+    private volatile CounterPyramid fPyramid;
+
+    /* The history built in partitions, null if it is built as one */
+    private volatile PartitionedStateSystem fPartitioned;
+    private volatile boolean fInterrupted;
+    /* Released once the history in partitions is available, or will not be */
+    private volatile CountDownLatch fPartitionsReady = new CountDownLatch(1);
+
     /**
      * Constructor
      */
@@ -51,11 +140,15 @@ public class TmfStatisticsTotalsModule2 extends TmfStateSystemAnalysisModule {
         super();
         setId(ID);
         setName(NAME);
+        addParameter(IN_MEMORY_EVENTS);
+        addParameter(PARTIAL_EVENTS);
     }
 
     @Override
     protected ITmfStateProvider createStateProvider() {
-        return new StatsProviderTotals(getTrace());
+        StatsProviderTotals provider = new StatsProviderTotals(getTrace());
+        fPyramid = provider.getPyramid();
+        return provider;
     }
 
     @Override
@@ -63,17 +156,599 @@ public class TmfStatisticsTotalsModule2 extends TmfStateSystemAnalysisModule {
         return "cache-statistics-totals.ht"; //$NON-NLS-1$
     }
 
+    /**
+     * The history of a small trace is kept in memory, the one of a huge trace
+     * is partial. A trace that is still being written, or whose number of
+     * events is not known yet, gets a full history.
+     */
+    @Override
+    protected StateSystemBackendType getBackendType() {
+        ITmfTrace trace = getTrace();
+        if (trace == null || (trace instanceof ITmfTraceCompleteness && !((ITmfTraceCompleteness) trace).isComplete())) {
+            return StateSystemBackendType.FULL;
+        }
+        long nbEvents = trace.getNbEvents();
+        if (nbEvents <= 0) {
+            return StateSystemBackendType.FULL;
+        }
+        if (nbEvents <= getThreshold(IN_MEMORY_EVENTS, DEFAULT_IN_MEMORY_EVENTS)) {
+            return StateSystemBackendType.INMEM;
+        }
+        if (nbEvents >= getThreshold(PARTIAL_EVENTS, DEFAULT_PARTIAL_EVENTS)) {
+            return StateSystemBackendType.PARTIAL;
+        }
+        return StateSystemBackendType.FULL;
+    }
+
+    /* A threshold parameter, its default if it is not set or not a number */
+    private long getThreshold(String name, long defaultValue) {
+        Object value = getParameter(name);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Open the history in partitions and build the ones of the events not in
+     * it yet if it can be built in partitions, else build or open it as one
+     * history. Save the summary pyramid once this one is built, or load the
+     * saved one if it already existed.
+     */
+    @Override
+    protected boolean executeAnalysis(IProgressMonitor monitor) throws TmfAnalysisException {
+        long startTime = System.nanoTime();
+        PartitionedStateSystem partitioned = null;
+        /* An analysis scheduled again waits for this execution */
+        if (fPartitionsReady.getCount() == 0) {
+            fPartitionsReady = new CountDownLatch(1);
+        }
+        fInterrupted = false;
+        try {
+            /* A trace opened right after it was written may still be growing */
+            ITmfTrace trace = getTrace();
+            if (trace instanceof IGrowingTrace) {
+                ((IGrowingTrace) trace).waitForProbe();
+            }
+            if (isPartitioned()) {
+                partitioned = buildPartitions(monitor);
+                /* The partitions built so far are kept for the next time */
+                fInterrupted = (partitioned == null && monitor.isCanceled());
+            }
+            fPartitioned = partitioned;
+        } finally {
+            /* Already released if the partitions were published */
+            fPartitionsReady.countDown();
+        }
+        if (fInterrupted) {
+            return false;
+        }
+        if (partitioned != null) {
+            logBackend(true, System.nanoTime() - startTime);
+            return true;
+        }
+        if (!super.executeAnalysis(monitor)) {
+            return false;
+        }
+        logBackend(false, System.nanoTime() - startTime);
+        File file = getPyramidFile();
+        CounterPyramid pyramid = fPyramid;
+        if (file == null) {
+            return true;
+        }
+        if (pyramid == null || pyramid.isEmpty()) {
+            fPyramid = CounterPyramid.load(file, StatsProviderTotals.VERSION);
+        } else {
+            try {
+                pyramid.save(file, StatsProviderTotals.VERSION);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void canceling() {
+        fPartitionsReady.countDown();
+        super.canceling();
+    }
+
+    @Override
+    public void waitForInitialization() {
+        try {
+            fPartitionsReady.await();
+        } catch (InterruptedException e) {
+            return;
+        }
+        if (fPartitioned == null && !fInterrupted) {
+            super.waitForInitialization();
+        }
+    }
+
+    @Override
+    public ITmfStateSystem getStateSystem() {
+        ITmfStateSystem partitioned = fPartitioned;
+        return (partitioned != null) ? partitioned : super.getStateSystem();
+    }
+
+    @Override
+    public ITmfStateSystem getStateSystem(String id) {
+        ITmfStateSystem partitioned = fPartitioned;
+        if (partitioned != null) {
+            return ID.equals(id) ? partitioned : null;
+        }
+        return super.getStateSystem(id);
+    }
+
+    @Override
+    public Iterable<ITmfStateSystem> getStateSystems() {
+        ITmfStateSystem partitioned = fPartitioned;
+        if (partitioned != null) {
+            return Collections.singletonList(partitioned);
+        }
+        return super.getStateSystems();
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        ITmfStateSystem partitioned = fPartitioned;
+        if (partitioned != null) {
+            partitioned.dispose();
+        }
+    }
+
+    /**
+     * Get the summary of the total and of the counters at several resolutions
+     *
+     * @return the pyramid, or null if it is not available
+     */
+    CounterPyramid getPyramid() {
+        return fPyramid;
+    }
+
+    private File getPyramidFile() {
+        ITmfTrace trace = getTrace();
+        String directory = (trace == null) ? null : TmfTraceManager.getSupplementaryFileDir(trace);
+        return (directory == null) ? null : new File(directory, PYRAMID_FILE_NAME);
+    }
+
+    /*
+     * Log the backend of the history, with the memory it takes if it is in
+     * memory, or the size of its files.
+     */
+    private void logBackend(boolean partitioned, long duration) {
+        Activator activator = Activator.getDefault();
+        ITmfTrace trace = getTrace();
+        ITmfStateSystem ss = getStateSystem();
+        if (activator == null || trace == null || ss == null) {
+            return;
+        }
+        StringBuilder message = new StringBuilder(NAME).append(" of ").append(trace.getName()).append(": "); //$NON-NLS-1$ //$NON-NLS-2$
+        StateSystemBackendType backend = partitioned ? StateSystemBackendType.FULL : getBackendType();
+        if (backend == StateSystemBackendType.INMEM) {
+            long bytes = trace.getNbEvents() * ss.getNbAttributes() * INTERVAL_BYTES;
+            message.append("in-memory history, about ").append(bytes >> 10).append(" KB of memory"); //$NON-NLS-1$ //$NON-NLS-2$
+        } else {
+            long bytes = 0;
+            File file = getPartitionFile(0);
+            File[] files = (file == null) ? null : file.getParentFile().listFiles();
+            for (int i = 0; files != null && i < files.length; i++) {
+                if (files[i].getName().startsWith(getSsFileName())) {
+                    bytes += files[i].length();
+                }
+            }
+            message.append((backend == StateSystemBackendType.PARTIAL) ? "partial history" : "full history"); //$NON-NLS-1$ //$NON-NLS-2$
+            if (partitioned) {
+                message.append(" in partitions"); //$NON-NLS-1$
+            }
+            message.append(", ").append(bytes >> 10).append(" KB on disk"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        message.append(", ").append(trace.getNbEvents()).append(" events, ready in ") //$NON-NLS-1$ //$NON-NLS-2$
+                .append(duration / 1000000).append(" ms"); //$NON-NLS-1$
+        activator.logInfo(message.toString());
+    }
+
+    private File getPartitionFile(int partition) {
+        ITmfTrace trace = getTrace();
+        String directory = (trace == null) ? null : TmfTraceManager.getSupplementaryFileDir(trace);
+        return (directory == null) ? null : new File(directory, getSsFileName() + '.' + partition);
+    }
+
+    private File getCheckpointFile() {
+        ITmfTrace trace = getTrace();
+        String directory = (trace == null) ? null : TmfTraceManager.getSupplementaryFileDir(trace);
+        return (directory == null) ? null : new File(directory, getSsFileName() + ".ckp"); //$NON-NLS-1$
+    }
+
+    /* Delete the files of the partitions from one on, the ones after it were never kept */
+    private void deletePartitionFiles(int from) {
+        for (int p = from;; p++) {
+            File file = getPartitionFile(p);
+            if (file == null || !file.delete()) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * Tell if the history is built in partitions: the trace is a counter
+     * trace that will not grow anymore, and gets a full history.
+     */
+    private boolean isPartitioned() {
+        ITmfTrace trace = getTrace();
+        if (!(trace instanceof ICounterTrace) || getCheckpointFile() == null || trace.getNbEvents() <= 0) {
+            return false;
+        }
+        if (trace instanceof ITmfTraceCompleteness && !((ITmfTraceCompleteness) trace).isComplete()) {
+            return false;
+        }
+        return getBackendType() == StateSystemBackendType.FULL;
+    }
+
+    /*
+     * The time of the event at a rank, in nanoseconds, Long.MIN_VALUE if there
+     * is none.
+     */
+    private static long getTime(ITmfTrace trace, long rank) {
+        ITmfContext context = trace.seekEvent(rank);
+        try {
+            ITmfEvent event = trace.getNext(context);
+            return (event == null) ? Long.MIN_VALUE : event.getTimestamp().normalize(0, ITmfTimestamp.NANOSECOND_SCALE).getValue();
+        } finally {
+            context.dispose();
+        }
+    }
+
+    /*
+     * Open the history of the partitions of the last checkpoint, and return
+     * it, or null if there is none or the trace is not the same anymore. The
+     * partitions of a round that was not finished are deleted.
+     */
+    private StatisticsCheckpoint openCheckpoint(ITmfTrace trace, long start, List<ITmfStateSystem> partitions) {
+        File file = getCheckpointFile();
+        if (!file.isFile()) {
+            adoptHistory(trace, start);
+        }
+        StatisticsCheckpoint checkpoint = StatisticsCheckpoint.load(file, StatsProviderTotals.VERSION);
+        try {
+            if (checkpoint != null && checkpoint.getNbEvents() <= trace.getNbEvents()
+                    && getTime(trace, checkpoint.getNbEvents() - 1) == checkpoint.getLastTime()) {
+                for (int p = 0; p < checkpoint.getNbPartitions(); p++) {
+                    IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendExistingFile(ID,
+                            getPartitionFile(p), StatsProviderTotals.VERSION);
+                    partitions.add(StateSystemFactory.newStateSystem(backend, false));
+                }
+                if (partitions.get(0).getStartTime() == start) {
+                    deletePartitionFiles(partitions.size());
+                    return checkpoint;
+                }
+            }
+        } catch (IOException e) {
+            /* A partition is missing or corrupted, build them all again */
+        }
+        for (ITmfStateSystem partition : partitions) {
+            partition.dispose();
+        }
+        partitions.clear();
+        deletePartitionFiles(0);
+        file.delete();
+        /* The history built as one before, if any, is not the one of this trace */
+        new File(file.getParentFile(), getSsFileName()).delete();
+        return null;
+    }
+
+    /*
+     * Make the first partition of the full history built as one before, with
+     * a checkpoint after it, if it starts with the trace and its last event is
+     * still in the trace. Its pyramid must have been saved too.
+     */
+    private void adoptHistory(ITmfTrace trace, long start) {
+        File history = new File(getCheckpointFile().getParentFile(), getSsFileName());
+        File pyramidFile = getPyramidFile();
+        if (!history.isFile() || pyramidFile == null) {
+            return;
+        }
+        CounterPyramid pyramid = CounterPyramid.load(pyramidFile, StatsProviderTotals.VERSION);
+        if (pyramid == null || pyramid.isEmpty()) {
+            return;
+        }
+        long nbEvents;
+        long lastTime;
+        try {
+            IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendExistingFile(ID,
+                    history, StatsProviderTotals.VERSION);
+            ITmfStateSystem ss = StateSystemFactory.newStateSystem(backend, false);
+            try {
+                if (ss.getStartTime() != start) {
+                    return;
+                }
+                /* A counter trace has no lost event, every event is a sample */
+                lastTime = ss.getCurrentEndTime();
+                ITmfStateValue samples = ss.querySingleState(lastTime, ss.getQuarkAbsolute(Attributes.SAMPLES)).getStateValue();
+                nbEvents = samples.isNull() ? 0 : samples.unboxLong();
+            } finally {
+                ss.dispose();
+            }
+        } catch (IOException | AttributeNotFoundException | StateSystemDisposedException e) {
+            return;
+        }
+        if (nbEvents <= 0 || nbEvents > trace.getNbEvents() || getTime(trace, nbEvents - 1) != lastTime) {
+            return;
+        }
+        try {
+            Files.move(history.toPath(), getPartitionFile(0).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            new StatisticsCheckpoint(new long[] { nbEvents }, lastTime, pyramid).save(getCheckpointFile(), StatsProviderTotals.VERSION);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * Open the history of the partitions of the last checkpoint, and build
+     * the ones of the events after it, null if it was cancelled or failed.
+     * The partitions are built a round at a time, one per core in a round,
+     * and a checkpoint is saved after each round. The history is published
+     * as soon as it has a partition, and each round is appended to it.
+     */
+    private PartitionedStateSystem buildPartitions(IProgressMonitor monitor) {
+        ITmfTrace trace = getTrace();
+        long nbEvents = trace.getNbEvents();
+        long start = trace.getStartTime().normalize(0, ITmfTimestamp.NANOSECOND_SCALE).getValue();
+
+        List<ITmfStateSystem> partitions = new ArrayList<>();
+        StatisticsCheckpoint checkpoint = openCheckpoint(trace, start, partitions);
+        CounterPyramid pyramid = (checkpoint == null) ? null : checkpoint.getPyramid();
+        long[] ends = new long[partitions.size()];
+        for (int p = 0; p < ends.length; p++) {
+            ends[p] = checkpoint.getStart(p + 1);
+        }
+
+        PartitionedStateSystem partitioned = null;
+        try {
+            if (!partitions.isEmpty()) {
+                partitioned = publish(newPartitionedStateSystem(partitions));
+            }
+            for (long first = (checkpoint == null) ? 0 : checkpoint.getNbEvents(); first < nbEvents;) {
+                int nbPartitions = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                        (nbEvents - first) / PARTITION_MIN_EVENTS));
+                long last = Math.min(nbEvents, first + nbPartitions * PARTITION_MAX_EVENTS);
+                StatsProviderTotals[] providers = new StatsProviderTotals[nbPartitions];
+                for (int p = 0; p < nbPartitions; p++) {
+                    providers[p] = (pyramid == null) ? new StatsProviderTotals(trace, start) : new StatsProviderTotals(trace, pyramid);
+                }
+                List<ITmfStateSystem> round = buildRound(trace, providers, partitions.size(), first, last, monitor);
+                if (round == null) {
+                    unpublish(partitioned);
+                    for (ITmfStateSystem partition : partitions) {
+                        partition.dispose();
+                    }
+                    return null;
+                }
+
+                for (StatsProviderTotals provider : providers) {
+                    if (pyramid == null) {
+                        pyramid = provider.getPyramid();
+                    } else {
+                        pyramid.merge(provider.getPyramid());
+                    }
+                }
+                partitions.addAll(round);
+                if (partitioned == null) {
+                    partitioned = publish(newPartitionedStateSystem(partitions));
+                } else {
+                    partitioned.append(round);
+                }
+                ends = Arrays.copyOf(ends, partitions.size());
+                for (int p = 0; p < nbPartitions; p++) {
+                    ends[ends.length - nbPartitions + p] = first + (last - first) * (p + 1) / nbPartitions;
+                }
+                first = last;
+                try {
+                    new StatisticsCheckpoint(ends, getTime(trace, last - 1), pyramid).save(getCheckpointFile(), StatsProviderTotals.VERSION);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            fPyramid = pyramid;
+            if (partitioned == null) {
+                partitioned = newPartitionedStateSystem(partitions);
+            }
+            partitioned.setBuilt(true);
+            return partitioned;
+        } catch (AttributeNotFoundException | StateSystemDisposedException e) {
+            e.printStackTrace();
+        }
+        unpublish(partitioned);
+        for (ITmfStateSystem partition : partitions) {
+            partition.dispose();
+        }
+        deletePartitionFiles(0);
+        getCheckpointFile().delete();
+        return null;
+    }
+
+    /*
+     * Make the history in partitions the state system of this module, and
+     * release the views waiting for it.
+     */
+    private PartitionedStateSystem publish(PartitionedStateSystem partitioned) {
+        fPartitioned = partitioned;
+        fPartitionsReady.countDown();
+        return partitioned;
+    }
+
+    /*
+     * Take back a published history whose build stopped, its partitions are
+     * disposed by the caller.
+     */
+    private void unpublish(PartitionedStateSystem partitioned) {
+        if (partitioned != null) {
+            fPartitioned = null;
+            partitioned.setBuilt(false);
+        }
+    }
+
+    /*
+     * Build the partitions of the events from rank first to last, each on its
+     * own thread, null if it was cancelled or failed.
+     */
+    private List<ITmfStateSystem> buildRound(final ITmfTrace trace, final StatsProviderTotals[] providers,
+            final int firstPartition, final long first, final long last, final IProgressMonitor monitor) {
+        final int nbPartitions = providers.length;
+        List<Callable<ITmfStateSystem>> tasks = new ArrayList<>();
+        for (int p = 0; p < nbPartitions; p++) {
+            final int partition = p;
+            tasks.add(new Callable<ITmfStateSystem>() {
+                @Override
+                public ITmfStateSystem call() throws IOException {
+                    return buildPartition(trace, firstPartition + partition, first + (last - first) * partition / nbPartitions,
+                            first + (last - first) * (partition + 1) / nbPartitions, providers[partition], monitor);
+                }
+            });
+        }
+
+        List<ITmfStateSystem> partitions = new ArrayList<>();
+        boolean failed = false;
+        ForkJoinPool pool = new ForkJoinPool(nbPartitions);
+        try {
+            for (Future<ITmfStateSystem> result : pool.invokeAll(tasks)) {
+                try {
+                    partitions.add(result.get());
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    failed = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            failed = true;
+        } finally {
+            pool.shutdown();
+        }
+        if (!failed && !monitor.isCanceled()) {
+            return partitions;
+        }
+        for (ITmfStateSystem partition : partitions) {
+            partition.dispose();
+        }
+        deletePartitionFiles(firstPartition);
+        return null;
+    }
+
+    /*
+     * Build the history of the events of a partition, seeding its provider
+     * with the event before.
+     */
+    private ITmfStateSystem buildPartition(ITmfTrace trace, int partition, long first, long last,
+            StatsProviderTotals provider, IProgressMonitor monitor) throws IOException {
+        ITmfContext context = trace.seekEvent(Math.max(0, first - 1));
+        try {
+            if (first > 0) {
+                provider.seed(trace.getNext(context));
+            }
+            ITmfEvent event = trace.getNext(context);
+            if (event == null) {
+                throw new IOException("No event in partition " + partition); //$NON-NLS-1$
+            }
+            long start = event.getTimestamp().normalize(0, ITmfTimestamp.NANOSECOND_SCALE).getValue();
+            IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(ID,
+                    getPartitionFile(partition), provider.getVersion(), start, QUEUE_SIZE);
+            ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(backend);
+            provider.createAttributes(ss);
+            provider.assignTargetStateSystem(ss);
+            for (long rank = first; rank < last && event != null && !monitor.isCanceled(); rank++) {
+                provider.processEvent(event);
+                event = (rank + 1 < last) ? trace.getNext(context) : null;
+            }
+            /* Closes the history at the last event */
+            provider.dispose();
+            return ss;
+        } finally {
+            context.dispose();
+        }
+    }
+
+    /*
+     * The partitions as one state system, the samples and the running sums
+     * continuing from one partition to the next.
+     */
+    private static PartitionedStateSystem newPartitionedStateSystem(List<ITmfStateSystem> partitions)
+            throws AttributeNotFoundException, StateSystemDisposedException {
+        ITmfStateSystem first = partitions.get(0);
+        List<Integer> running = new ArrayList<>();
+        running.add(first.getQuarkAbsolute(Attributes.SAMPLES));
+        running.addAll(first.getSubAttributes(first.getQuarkAbsolute(Attributes.PREFIX), false));
+        return new PartitionedStateSystem(ID, partitions, running);
+    }
+
+    /*
+     * The sum of two longs, Long.MAX_VALUE or Long.MIN_VALUE if it overflows.
+     * A saturated sum stays saturated.
+     */
+    static long saturatedAdd(long sum, long value) {
+        if (sum == Long.MAX_VALUE || sum == Long.MIN_VALUE) {
+            return sum;
+        }
+        long result = sum + value;
+        /* overflow when both operands have the sign opposite to the result */
+        if (((sum ^ result) & (value ^ result)) < 0) {
+            return (sum < 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return result;
+    }
+
+    /*
+     * The duration of a trace in nanoseconds, 0 if its time range is not known.
+     */
+    private static long getDuration(ITmfTrace trace) {
+        ITmfTimestamp start = trace.getStartTime();
+        ITmfTimestamp end = trace.getEndTime();
+        if (start == null || end == null) {
+            return 0;
+        }
+        long duration = end.normalize(0, ITmfTimestamp.NANOSECOND_SCALE).getValue()
+                - start.normalize(0, ITmfTimestamp.NANOSECOND_SCALE).getValue();
+        return (duration > 0) ? duration : 0;
+    }
+
 
     /**
      * The state provider for traces statistics that use TmfStateStatistics. It
      * should work with any trace type for which we can use the state system.
      *
-     * Only one attribute will be stored, containing the total of events seen so
-     * far. The resulting attribute tree will look like this:
+     * One attribute contains the total of events seen so far. For a counter
+     * trace, every counter column also gets its own attribute, all recorded in
+     * the same pass over the trace.
+     *
+     * Next to the samples, the history holds the number of samples so far and
+     * the running sum of the samples of the total and of every counter, so
+     * that a sum or an average over any range takes two queries at its ends.
+     * A running sum that would overflow stays at Long.MAX_VALUE (or
+     * Long.MIN_VALUE).
+     *
+     * The resulting attribute tree will look like this:
      *
      * <pre>
      * (root)
-     *   \-- total
+     *   |-- total
+     *   |-- counters
+     *   |     |-- CPU0 COUNTER
+     *   |     |-- CPU0 - Data Cache Refill
+     *   |     \-- ...
+     *   |-- samples
+     *   \-- prefix
+     *         |-- total
+     *         |-- CPU0 COUNTER
+     *         \-- ...
      * </pre>
      *
      * @author Alexandre Montplaisir
@@ -85,7 +760,33 @@ public class TmfStatisticsTotalsModule2 extends TmfStateSystemAnalysisModule {
          * Version number of this input handler. Please bump this if you modify the
          * contents of the generated state history in some way.
          */
-        private static final int VERSION = 2;
+        private static final int VERSION = 4;
+
+        /** The counter stored in the total */
+        private static final String COUNTER = " CPU0 - Branch Miss"; //$NON-NLS-1$
+
+        /** The column giving the time, which is not a counter */
+        private static final String TIME_COLUMN = "CLK_REF_COUNTER"; //$NON-NLS-1$
+
+        /** Column of the counter in a counter trace, resolved once */
+        private final int fColumn;
+
+        /** The counter columns of a counter trace, and their quarks */
+        private final int[] fCounterColumns;
+        private final String[] fCounterNames;
+        private int[] fCounterQuarks;
+
+        /** The summary of the total and of the counters, and the last sample */
+        private final CounterPyramid fPyramid;
+        private final long[] fSample;
+
+        /**
+         * The quarks of the running sums of the total and of the counters.
+         * The sums are read back from the state system, which holds them
+         * when a partial history replays the events from a checkpoint.
+         */
+        private int[] fPrefixQuarks;
+        private int fSamplesQuark;
 
         /**
          * Constructor
@@ -94,7 +795,108 @@ public class TmfStatisticsTotalsModule2 extends TmfStateSystemAnalysisModule {
          *            The trace for which we build this state system
          */
         public StatsProviderTotals(ITmfTrace trace) {
+            this(trace, false, 0, null);
+        }
+
+        /**
+         * Constructor of the provider of a time partition of the trace. Its
+         * running values start from 0, and its pyramid can be merged with the
+         * ones of the other partitions.
+         *
+         * @param trace
+         *            The trace for which we build this state system
+         * @param start
+         *            The start time of the trace, in nanoseconds
+         */
+        StatsProviderTotals(ITmfTrace trace, long start) {
+            this(trace, true, start, null);
+        }
+
+        /**
+         * Constructor of the provider of a time partition after the ones
+         * summarized in a pyramid, built before. Its pyramid has the same
+         * buckets, to be merged in this one.
+         *
+         * @param trace
+         *            The trace for which we build this state system
+         * @param previous
+         *            The pyramid of the partitions before
+         */
+        StatsProviderTotals(ITmfTrace trace, CounterPyramid previous) {
+            this(trace, true, 0, previous);
+        }
+
+        private StatsProviderTotals(ITmfTrace trace, boolean partition, long start, CounterPyramid previous) {
             super(trace, NAME);
+            fColumn = (trace instanceof ICounterTrace) ? ((ICounterTrace) trace).getColumn(COUNTER) : -1;
+
+            int nbColumns = (trace instanceof ICounterTrace) ? ((ICounterTrace) trace).getColumnCount() : 0;
+            int timeColumn = (trace instanceof ICounterTrace) ? ((ICounterTrace) trace).getColumn(TIME_COLUMN) : -1;
+            fCounterColumns = new int[(timeColumn >= 0) ? nbColumns - 1 : nbColumns];
+            fCounterNames = new String[fCounterColumns.length];
+            for (int column = 0, i = 0; column < nbColumns; column++) {
+                if (column != timeColumn) {
+                    fCounterColumns[i] = column;
+                    fCounterNames[i] = ((ICounterTrace) trace).getColumnName(column);
+                    i++;
+                }
+            }
+
+            String[] series = new String[fCounterNames.length + 1];
+            series[0] = Attributes.TOTAL;
+            System.arraycopy(fCounterNames, 0, series, 1, fCounterNames.length);
+            if (previous != null) {
+                fPyramid = new CounterPyramid(previous);
+            } else {
+                fPyramid = partition ? new CounterPyramid(series, start, getDuration(trace)) : new CounterPyramid(series, getDuration(trace));
+            }
+            fSample = new long[series.length];
+        }
+
+        /**
+         * Get the summary pyramid filled by this provider
+         *
+         * @return the pyramid of the total and of the counters
+         */
+        CounterPyramid getPyramid() {
+            return fPyramid;
+        }
+
+        /**
+         * Start the increases of the partition from the event before it
+         *
+         * @param previous
+         *            The last event of the partition before
+         */
+        void seed(ITmfEvent previous) {
+            if (previous != null && !(previous instanceof ITmfLostEvent)) {
+                readSample(previous);
+                fPyramid.seed(fSample);
+            }
+        }
+
+        /**
+         * Create the attributes before the events come, in the order the
+         * events would create them, so that the quarks are the same in every
+         * partition
+         *
+         * @param ss
+         *            The state system of the partition
+         */
+        void createAttributes(ITmfStateSystemBuilder ss) {
+            ss.getQuarkAbsoluteAndAdd(Attributes.TOTAL);
+            if (fCounterColumns.length > 0) {
+                fCounterQuarks = new int[fCounterColumns.length];
+                for (int i = 0; i < fCounterColumns.length; i++) {
+                    fCounterQuarks[i] = ss.getQuarkAbsoluteAndAdd(Attributes.COUNTERS, fCounterNames[i]);
+                }
+            }
+            fSamplesQuark = ss.getQuarkAbsoluteAndAdd(Attributes.SAMPLES);
+            fPrefixQuarks = new int[fSample.length];
+            fPrefixQuarks[0] = ss.getQuarkAbsoluteAndAdd(Attributes.PREFIX, Attributes.TOTAL);
+            for (int i = 1; i < fSample.length; i++) {
+                fPrefixQuarks[i] = ss.getQuarkAbsoluteAndAdd(Attributes.PREFIX, fCounterNames[i - 1]);
+            }
         }
 
         @Override
@@ -123,14 +925,70 @@ public class TmfStatisticsTotalsModule2 extends TmfStateSystemAnalysisModule {
             try {
                 /* Total number of cache accesses */
                 int quark = ss.getQuarkAbsoluteAndAdd(Attributes.TOTAL);
-                ITmfEventField field = event.getContent().getField(" CPU0 - Branch Miss");
-                long parseLong = Long.parseLong(field.getValue().toString());
+                boolean counters = readSample(event);
+
+                ss.modifyAttribute(ts, TmfStateValue.newValueLong(fSample[0]), quark);
 
-                ss.modifyAttribute(ts, TmfStateValue.newValueLong(parseLong), quark);
+                if (counters) {
+                    if (fCounterQuarks == null) {
+                        fCounterQuarks = new int[fCounterColumns.length];
+                        for (int i = 0; i < fCounterColumns.length; i++) {
+                            fCounterQuarks[i] = ss.getQuarkAbsoluteAndAdd(Attributes.COUNTERS, fCounterNames[i]);
+                        }
+                    }
+                    for (int i = 0; i < fCounterColumns.length; i++) {
+                        ss.modifyAttribute(ts, TmfStateValue.newValueLong(fSample[i + 1]), fCounterQuarks[i]);
+                    }
+                }
+
+                /* Running sums, for the sums and averages over a range */
+                if (fPrefixQuarks == null) {
+                    fSamplesQuark = ss.getQuarkAbsoluteAndAdd(Attributes.SAMPLES);
+                    fPrefixQuarks = new int[fSample.length];
+                    fPrefixQuarks[0] = ss.getQuarkAbsoluteAndAdd(Attributes.PREFIX, Attributes.TOTAL);
+                    for (int i = 1; i < fSample.length; i++) {
+                        fPrefixQuarks[i] = ss.getQuarkAbsoluteAndAdd(Attributes.PREFIX, fCounterNames[i - 1]);
+                    }
+                }
+                long nbSamples = getRunningValue(ss, fSamplesQuark) + 1;
+                ss.modifyAttribute(ts, TmfStateValue.newValueLong(nbSamples), fSamplesQuark);
+                for (int i = 0; i < fSample.length; i++) {
+                    long prefix = saturatedAdd(getRunningValue(ss, fPrefixQuarks[i]), fSample[i]);
+                    ss.modifyAttribute(ts, TmfStateValue.newValueLong(prefix), fPrefixQuarks[i]);
+                }
+
+                fPyramid.add(ts, fSample);
             } catch (StateValueTypeException | TimeRangeException | AttributeNotFoundException e) {
                 e.printStackTrace();
             }
         }
+
+        /* The current value of a running sum, 0 before its first event */
+        private long getRunningValue(ITmfStateSystemBuilder ss, int quark) throws AttributeNotFoundException {
+            ITmfStateValue value = ss.queryOngoingState(quark);
+            return value.isNull() ? 0 : value.unboxLong();
+        }
+
+        /*
+         * Read the total and the counters of an event in the sample, true if
+         * it has counters.
+         */
+        private boolean readSample(ITmfEvent event) {
+            if (fColumn >= 0 && event instanceof ICounterEvent) {
+                fSample[0] = ((ICounterEvent) event).getLong(fColumn);
+            } else {
+                ITmfEventField field = event.getContent().getField(COUNTER);
+                fSample[0] = Long.parseLong(field.getValue().toString());
+            }
+            if (fCounterColumns.length == 0 || !(event instanceof ICounterEvent)) {
+                return false;
+            }
+            ICounterEvent counters = (ICounterEvent) event;
+            for (int i = 0; i < fCounterColumns.length; i++) {
+                fSample[i + 1] = counters.getLong(fCounterColumns[i]);
+            }
+            return true;
+        }
     }
 
 }
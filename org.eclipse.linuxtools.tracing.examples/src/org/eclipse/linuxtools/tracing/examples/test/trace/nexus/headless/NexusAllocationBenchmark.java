@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.test.trace.nexus.headless;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusEvent;
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusTrace;
+import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+
+/**
+ * Measure the number of bytes allocated per event when reading a Nexus trace,
+ * with a new event per record and with a reused flyweight.
+ *
+ * The trace can be generated with {@link MakeMeANexus}.
+ */
+public class NexusAllocationBenchmark {
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args
+     *            The command-line arguments, the path of the trace can be
+     *            given as the first argument
+     */
+    public static void main(final String[] args) {
+        final String TRACE_PATH = (args.length > 0) ? args[0] :
+            System.getProperty("user.home") + File.separator + "nexusTrace";
+        final int NUM_LOOPS = 5;
+
+        NexusTrace trace = new NexusTrace();
+        try {
+            trace.initTrace(null, TRACE_PATH, TmfEvent.class);
+        } catch (final TmfTraceException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        /*
+         * The allocation counters are an extension of the HotSpot bean, read
+         * through reflection as the bundle may not reference it.
+         */
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        final Method allocatedBytes;
+        try {
+            Class<?> extension = Class.forName("com.sun.management.ThreadMXBean");
+            if (!extension.isInstance(bean)) {
+                throw new ClassNotFoundException();
+            }
+            allocatedBytes = extension.getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            System.out.println("Thread allocation counters are not available on this VM");
+            trace.dispose();
+            return;
+        }
+        final long tid = Thread.currentThread().getId();
+        final long nbEvent = trace.getNbEvents();
+
+        try {
+            /* The first loops warm up the JIT, only the last one is reported */
+            for (int loops = 0; loops < NUM_LOOPS; loops++) {
+                long before = (Long) allocatedBytes.invoke(bean, tid);
+                long checksumNew = readAll(trace, false);
+                long allocNew = (Long) allocatedBytes.invoke(bean, tid) - before;
+
+                before = (Long) allocatedBytes.invoke(bean, tid);
+                long checksumReuse = readAll(trace, true);
+                long allocReuse = (Long) allocatedBytes.invoke(bean, tid) - before;
+
+                if (loops == NUM_LOOPS - 1) {
+                    System.out.println("Events read = " + nbEvent + ", checksums " + checksumNew + " / " + checksumReuse);
+                    System.out.println("New event per record = " + (double) allocNew / nbEvent + " bytes/event");
+                    System.out.println("Reused flyweight = " + (double) allocReuse / nbEvent + " bytes/event");
+                }
+            }
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            e.printStackTrace();
+        }
+        trace.dispose();
+    }
+
+    /* Returns the sum of the payloads, so that the decoding is not optimized away */
+    private static long readAll(NexusTrace trace, boolean reuse) {
+        final ITmfContext context = trace.seekEvent(0);
+        final NexusEvent flyweight = reuse ? new NexusEvent(trace) : null;
+        long checksum = 0;
+        NexusEvent current = trace.getNext(context, flyweight);
+        while (current != null) {
+            checksum += current.getPayload();
+            current = trace.getNext(context, flyweight);
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.test.trace.nexus.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusCompressedTrace;
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusCompressedWriter;
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusEvent;
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusTrace;
+import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+
+/**
+ * Compress a Nexus trace, then compare the size, the sequential read rate and
+ * the random seek time of the raw and compressed traces.
+ *
+ * The trace can be generated with {@link MakeMeANexus}, its random payloads
+ * compress a lot less than real captures.
+ */
+public class NexusCompressionBenchmark {
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args
+     *            The command-line arguments, the path of the trace can be
+     *            given as the first argument
+     */
+    public static void main(final String[] args) {
+        final String TRACE_PATH = (args.length > 0) ? args[0] :
+            System.getProperty("user.home") + File.separator + "nexusTrace";
+        final File compressed = new File(TRACE_PATH + ".nxz");
+        final int NUM_SEEKS = 10000;
+
+        final NexusTrace trace = new NexusTrace();
+        final NexusCompressedTrace compressedTrace = new NexusCompressedTrace();
+        try {
+            trace.initTrace(null, TRACE_PATH, TmfEvent.class);
+            long start = System.nanoTime();
+            NexusCompressedWriter.write(trace, compressed);
+            long written = System.nanoTime();
+            System.out.println("Compressed in " + (written - start) / 1000000 + " ms, "
+                    + new File(TRACE_PATH).length() + " -> " + compressed.length() + " bytes ("
+                    + (double) new File(TRACE_PATH).length() / compressed.length() + "x)");
+            compressedTrace.initTrace(null, compressed.getPath(), TmfEvent.class);
+        } catch (final TmfTraceException | IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        long nbEvents = trace.getNbEvents();
+        long rawChecksum = 0;
+        long checksum = 0;
+        long start = System.nanoTime();
+        ITmfContext context = trace.seekEvent(0L);
+        NexusEvent flyweight = new NexusEvent(trace);
+        while (trace.getNext(context, flyweight) != null) {
+            rawChecksum += flyweight.getTime() + flyweight.getPayload();
+        }
+        long raw = System.nanoTime();
+        context = compressedTrace.seekEvent(0L);
+        flyweight = new NexusEvent(compressedTrace);
+        while (compressedTrace.getNext(context, flyweight) != null) {
+            checksum += flyweight.getTime() + flyweight.getPayload();
+        }
+        long done = System.nanoTime();
+        System.out.println("Sequential read, raw : " + nbEvents * 1000000000L / (raw - start)
+                + " events/s, compressed : " + nbEvents * 1000000000L / (done - raw)
+                + " events/s, same contents : " + (rawChecksum == checksum));
+
+        Random rnd = new Random(42);
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_SEEKS; i++) {
+            trace.getNext(trace.seekEvent((long) (rnd.nextDouble() * nbEvents)), flyweight);
+        }
+        raw = System.nanoTime();
+        rnd = new Random(42);
+        for (int i = 0; i < NUM_SEEKS; i++) {
+            compressedTrace.getNext(compressedTrace.seekEvent((long) (rnd.nextDouble() * nbEvents)),
+                    flyweight);
+        }
+        done = System.nanoTime();
+        System.out.println("Random seek, raw : " + (raw - start) / NUM_SEEKS + " ns, compressed : "
+                + (done - raw) / NUM_SEEKS + " ns, block cache hits "
+                + compressedTrace.getCacheHitCount() + ", misses "
+                + compressedTrace.getCacheMissCount());
+
+        trace.dispose();
+        compressedTrace.dispose();
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.test.trace.nexus.headless;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusEvent;
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusTrace;
+import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+
+/**
+ * Measure the read throughput of a Nexus trace with an increasing number of
+ * reader threads, each one reading its own slice of the trace through its own
+ * context.
+ *
+ * The trace can be generated with {@link MakeMeANexus}.
+ */
+public class NexusConcurrentReadBenchmark {
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args
+     *            The command-line arguments, the path of the trace can be
+     *            given as the first argument
+     */
+    public static void main(final String[] args) {
+        final String TRACE_PATH = (args.length > 0) ? args[0] :
+            System.getProperty("user.home") + File.separator + "nexusTrace";
+        final int NUM_LOOPS = 3;
+        final int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        final NexusTrace trace = new NexusTrace();
+        try {
+            trace.initTrace(null, TRACE_PATH, TmfEvent.class);
+        } catch (final TmfTraceException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        final AtomicLong checksum = new AtomicLong();
+        double single = 0;
+        for (int nbThreads = 1; nbThreads <= maxThreads; nbThreads *= 2) {
+            double best = 0;
+            for (int loops = 0; loops < NUM_LOOPS; loops++) {
+                best = Math.max(best, run(trace, nbThreads, checksum));
+            }
+            if (nbThreads == 1) {
+                single = best;
+            }
+            System.out.println(nbThreads + " threads : " + (long) best + " events/s, speedup "
+                    + best / single + ", checksum " + checksum.getAndSet(0));
+        }
+        trace.dispose();
+    }
+
+    /*
+     * Returns the number of events read per second, the payloads read are
+     * added to the checksum so that the decoding is not optimized away
+     */
+    private static double run(final NexusTrace trace, final int nbThreads, final AtomicLong checksums) {
+        final long nbEvents = trace.getNbEvents();
+        final AtomicLong total = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(nbThreads);
+        for (int i = 0; i < nbThreads; i++) {
+            final long first = nbEvents * i / nbThreads;
+            final long last = nbEvents * (i + 1) / nbThreads;
+            new Thread("Nexus reader " + i) {
+                @Override
+                public void run() {
+                    ITmfContext context = trace.seekEvent(new TmfLongLocation(first));
+                    NexusEvent flyweight = new NexusEvent(trace);
+                    long read = 0;
+                    long checksum = 0;
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while (context.getRank() < last && trace.getNext(context, flyweight) != null) {
+                        checksum += flyweight.getPayload();
+                        read++;
+                    }
+                    total.addAndGet(read);
+                    checksums.addAndGet(checksum);
+                    done.countDown();
+                }
+            }.start();
+        }
+        long before = System.nanoTime();
+        start.countDown();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            return 0;
+        }
+        long after = System.nanoTime();
+        return total.get() * 1e9 / (after - before);
+    }
+}
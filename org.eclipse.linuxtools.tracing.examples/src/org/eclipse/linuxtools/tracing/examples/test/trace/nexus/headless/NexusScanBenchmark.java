@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.test.trace.nexus.headless;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusReducers;
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusScanner;
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusTrace;
+import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+
+/**
+ * Measure the speedup of the parallel scan of a Nexus trace with the number of
+ * threads, using the built-in type count reducer.
+ *
+ * The trace can be generated with {@link MakeMeANexus}.
+ */
+public class NexusScanBenchmark {
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args
+     *            The command-line arguments, the path of the trace can be
+     *            given as the first argument
+     */
+    public static void main(final String[] args) {
+        final String TRACE_PATH = (args.length > 0) ? args[0] :
+            System.getProperty("user.home") + File.separator + "nexusTrace";
+        final int NUM_LOOPS = 5;
+        final int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        final NexusTrace trace = new NexusTrace();
+        try {
+            trace.initTrace(null, TRACE_PATH, TmfEvent.class);
+        } catch (final TmfTraceException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            double single = 0;
+            for (int nbThreads = 1; nbThreads <= maxThreads; nbThreads *= 2) {
+                NexusScanner scanner = new NexusScanner(trace, nbThreads);
+                long best = Long.MAX_VALUE;
+                long total = 0;
+                for (int loops = 0; loops < NUM_LOOPS; loops++) {
+                    long start = System.nanoTime();
+                    long[] counts = scanner.scan(NexusReducers.typeCounts());
+                    best = Math.min(best, System.nanoTime() - start);
+                    total = 0;
+                    for (long count : counts) {
+                        total += count;
+                    }
+                }
+                scanner.dispose();
+                double rate = total * 1e9 / best;
+                if (nbThreads == 1) {
+                    single = rate;
+                }
+                System.out.println(nbThreads + " threads : " + (long) rate + " events/s, speedup "
+                        + rate / single);
+            }
+            checkTimeHistogram(trace);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        trace.dispose();
+    }
+
+    /*
+     * Every record must land in a bucket of the time histogram of the whole
+     * trace, and the last record in the last bucket. The fine histogram has
+     * about one bucket per microsecond, where rounding errors show the most.
+     */
+    private static void checkTimeHistogram(NexusTrace trace) throws IOException {
+        final int MAX_BUCKETS = 1 << 20;
+        long nbEvents = trace.getNbEvents();
+        if (nbEvents == 0) {
+            return;
+        }
+        long start = trace.getTime(0);
+        long end = trace.getTime(nbEvents - 1);
+        int fine = (int) Math.max(1, Math.min(MAX_BUCKETS, end - start));
+        NexusScanner scanner = new NexusScanner(trace);
+        for (int nb : new int[] { 100, fine }) {
+            long[] buckets = scanner.scan(NexusReducers.timeHistogram(start, end, nb));
+            long total = 0;
+            for (long count : buckets) {
+                total += count;
+            }
+            if (total != nbEvents || buckets[nb - 1] == 0) {
+                scanner.dispose();
+                throw new IllegalStateException("Time histogram of " + nb + " buckets holds " + total
+                        + " of " + nbEvents + " events, " + buckets[nb - 1] + " in the last bucket");
+            }
+            System.out.println("Time histogram of " + nb + " buckets : " + total + " events, "
+                    + buckets[nb - 1] + " in the last bucket");
+        }
+        scanner.dispose();
+    }
+}
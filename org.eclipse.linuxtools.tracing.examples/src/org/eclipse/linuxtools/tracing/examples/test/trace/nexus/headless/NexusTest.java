@@ -14,6 +14,7 @@ package org.eclipse.linuxtools.tracing.examples.test.trace.nexus.headless;
 
 import java.util.Vector;
 
+import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusMappingManager;
 import org.eclipse.linuxtools.tracing.examples.trace.nexus.NexusTrace;
 import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
@@ -81,6 +82,9 @@ public class NexusTest {
             }
             stop = System.nanoTime();
             System.out.print('.');
+            System.out.println("Remaps = " + trace.getMappingManager().getRemapCount()
+                    + " major faults = " + NexusMappingManager.getMajorPageFaults()
+                    + " minor faults = " + NexusMappingManager.getMinorPageFaults());
             final double time = (stop - start) / (double) nbEvent;
             benchs.add(time);
         }
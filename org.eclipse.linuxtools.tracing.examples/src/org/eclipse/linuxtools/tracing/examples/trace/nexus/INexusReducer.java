@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+/**
+ * Reducer run by a {@link NexusScanner} over the records of a segment of a
+ * Nexus trace. Each segment gets its own partial result, which are then merged
+ * in rank order.
+ *
+ * The records are given in batches of primitive arrays, no event is created.
+ *
+ * @param <R>
+ *          the type of the result
+ */
+public interface INexusReducer<R> {
+
+  /**
+   * Create the empty partial result of a segment
+   *
+   * @return the partial result
+   */
+  R createPartial();
+
+  /**
+   * Add a batch of records to a partial result
+   *
+   * @param partial
+   *          the partial result of the segment
+   * @param times
+   *          the 64-bit times, in microseconds
+   * @param types
+   *          the type IDs, 0 to 63
+   * @param payloads
+   *          the 26-bit payloads
+   * @param count
+   *          the number of records in the arrays
+   */
+  void reduce(R partial, long[] times, byte[] types, int[] payloads, int count);
+
+  /**
+   * Merge two partial results
+   *
+   * @param left
+   *          the result of the first segment
+   * @param right
+   *          the result of the segment that follows it
+   * @return the merged result, can be one of the parameters
+   */
+  R merge(R left, R right);
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+/**
+ * A decompressed block of a compressed Nexus trace, the records are kept as
+ * columns of primitives. A block is never modified once decoded, so it can be
+ * shared between the block cache and the contexts reading it.
+ */
+final class NexusBlock {
+
+  private final long fFirstRank;
+  private final long[] fTimes;
+  private final byte[] fTypes;
+  private final int[] fPayloads;
+
+  /**
+   * Constructor
+   *
+   * @param firstRank
+   *          the rank of the first record of the block
+   * @param times
+   *          the 64-bit times, in microseconds
+   * @param types
+   *          the type IDs
+   * @param payloads
+   *          the payloads
+   */
+  NexusBlock(long firstRank, long[] times, byte[] types, int[] payloads) {
+    fFirstRank = firstRank;
+    fTimes = times;
+    fTypes = types;
+    fPayloads = payloads;
+  }
+
+  /**
+   * Get the rank of the first record
+   *
+   * @return the rank
+   */
+  long getFirstRank() {
+    return fFirstRank;
+  }
+
+  /**
+   * Get the number of records
+   *
+   * @return the number of records in the block
+   */
+  int getCount() {
+    return fTimes.length;
+  }
+
+  /**
+   * Check if a record is in this block
+   *
+   * @param rank
+   *          the rank of the record
+   * @return true if the block holds the record
+   */
+  boolean contains(long rank) {
+    return rank >= fFirstRank && rank < fFirstRank + fTimes.length;
+  }
+
+  /**
+   * Get the times of the records
+   *
+   * @return the times, indexed by rank minus the first rank
+   */
+  long[] getTimes() {
+    return fTimes;
+  }
+
+  /**
+   * Get the type IDs of the records
+   *
+   * @return the type IDs, indexed by rank minus the first rank
+   */
+  byte[] getTypes() {
+    return fTypes;
+  }
+
+  /**
+   * Get the payloads of the records
+   *
+   * @return the payloads, indexed by rank minus the first rank
+   */
+  int[] getPayloads() {
+    return fPayloads;
+  }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.IOException;
+
+import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+
+/**
+ * Context of a compressed Nexus trace. It holds on to the block being read, so
+ * the block cache is only looked up when the reads cross into another block.
+ *
+ * The location is the rank of the next record to read, like for
+ * {@link NexusContext}.
+ */
+class NexusBlockContext extends TmfContext {
+
+  private NexusBlock fBlock;
+
+  /**
+   * Constructor
+   *
+   * @param rank
+   *          the rank of the next record to read
+   */
+  public NexusBlockContext(long rank) {
+    super(new TmfLongLocation(rank), rank);
+  }
+
+  @Override
+  public ITmfLocation getLocation() {
+    return new TmfLongLocation(getRank());
+  }
+
+  /**
+   * Get the block holding a record
+   *
+   * @param blocks
+   *          the blocks of the trace
+   * @param rank
+   *          the rank of the record
+   * @return the block
+   * @throws IOException
+   *           if the block could not be read
+   */
+  NexusBlock getBlock(NexusBlockFile blocks, long rank) throws IOException {
+    NexusBlock block = fBlock;
+    if (block == null || !block.contains(rank)) {
+      block = blocks.getBlock(rank);
+      fBlock = block;
+    }
+    return block;
+  }
+}
@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Block table and block cache of a compressed Nexus trace.
+ *
+ * A compressed trace is laid out as follows (big-endian):
+ *
+ * <pre>
+ * byte[4]  magic, "NXZ1"
+ * the header line of a Nexus trace, 64 comma separated names and '\n'
+ * blocks, each one a Deflate stream of:
+ *   long   time of the first record, in microseconds, with its wrap epoch
+ *   int[n] time of each record minus the time of the previous one
+ *   int[n] type (upper 6 bits) and payload (lower 26 bits) of each record
+ * block table, for each block:
+ *   long   position of the block
+ *   long   time of its first record
+ * tail:
+ *   long   position of the block table
+ *   int    number of blocks
+ *   int    number of records per block, the last one can hold less
+ *   long   number of records
+ *   long   time of the last record
+ *   byte[4] magic, "NXZ1"
+ * </pre>
+ *
+ * The block of a rank is found with a division, and the block of a time with
+ * a binary search over the block table. The blocks are read with plain
+ * positional reads, only the compressed bytes go through the page cache.
+ */
+final class NexusBlockFile {
+
+  /** Magic bytes at the start and at the end of a compressed trace */
+  static final byte[] MAGIC = { 'N', 'X', 'Z', '1' };
+
+  /** Size of the tail of the file */
+  static final int TAIL_SIZE = 8 + 4 + 4 + 8 + 8 + 4;
+
+  /** Size of an entry of the block table */
+  static final int TABLE_ENTRY_SIZE = 8 + 8;
+
+  /** Number of decompressed blocks kept in memory */
+  private static final int MAX_CACHED_BLOCKS = 8;
+
+  private final FileChannel fChannel;
+  private final long fTablePosition;
+  private final int fRecordsPerBlock;
+  private final long fNbRecords;
+  private final long fLastTime;
+  /* position of each block, plus the position of the table at the end */
+  private final long[] fPositions;
+  private final long[] fFirstTimes;
+
+  private final Map<Integer, NexusBlock> fCache = new LinkedHashMap<Integer, NexusBlock>(
+      MAX_CACHED_BLOCKS + 1, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, NexusBlock> eldest) {
+      return size() > MAX_CACHED_BLOCKS;
+    }
+  };
+
+  private final AtomicLong fHits = new AtomicLong();
+  private final AtomicLong fMisses = new AtomicLong();
+
+  /**
+   * Open a compressed trace and read its block table
+   *
+   * @param file
+   *          the file
+   * @throws IOException
+   *           if the file could not be read or is not a compressed trace
+   */
+  @SuppressWarnings("resource")
+  NexusBlockFile(File file) throws IOException {
+    fChannel = new FileInputStream(file).getChannel();
+    try {
+      long size = fChannel.size();
+      if (size < MAGIC.length + TAIL_SIZE) {
+        throw new IOException(file + " is too small"); //$NON-NLS-1$
+      }
+      ByteBuffer tail = read(size - TAIL_SIZE, TAIL_SIZE);
+      fTablePosition = tail.getLong();
+      int nbBlocks = tail.getInt();
+      fRecordsPerBlock = tail.getInt();
+      fNbRecords = tail.getLong();
+      fLastTime = tail.getLong();
+      byte[] magic = new byte[MAGIC.length];
+      tail.get(magic);
+      if (!Arrays.equals(magic, MAGIC) || nbBlocks < 0 || fRecordsPerBlock <= 0
+          || fTablePosition + (long) nbBlocks * TABLE_ENTRY_SIZE != size - TAIL_SIZE) {
+        throw new IOException(file + " has no block table"); //$NON-NLS-1$
+      }
+      ByteBuffer table = read(fTablePosition, nbBlocks * TABLE_ENTRY_SIZE);
+      fPositions = new long[nbBlocks + 1];
+      fFirstTimes = new long[nbBlocks];
+      for (int i = 0; i < nbBlocks; i++) {
+        fPositions[i] = table.getLong();
+        fFirstTimes[i] = table.getLong();
+      }
+      fPositions[nbBlocks] = fTablePosition;
+    } catch (IOException e) {
+      fChannel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the number of records
+   *
+   * @return the number of records in the trace
+   */
+  long getNbRecords() {
+    return fNbRecords;
+  }
+
+  /**
+   * Get the time of the first record
+   *
+   * @return the time in microseconds, 0 if the trace is empty
+   */
+  long getFirstTime() {
+    return (fFirstTimes.length > 0) ? fFirstTimes[0] : 0;
+  }
+
+  /**
+   * Get the time of the last record
+   *
+   * @return the time in microseconds, 0 if the trace is empty
+   */
+  long getLastTime() {
+    return fLastTime;
+  }
+
+  /**
+   * Get the number of block reads served by the cache
+   *
+   * @return the number of hits
+   */
+  long getHitCount() {
+    return fHits.get();
+  }
+
+  /**
+   * Get the number of blocks read from the file and decompressed
+   *
+   * @return the number of misses
+   */
+  long getMissCount() {
+    return fMisses.get();
+  }
+
+  /**
+   * Get the block holding a record, decompressing it if it is not cached
+   *
+   * @param rank
+   *          the rank of the record, between 0 and the number of records
+   * @return the block
+   * @throws IOException
+   *           if the block could not be read
+   */
+  NexusBlock getBlock(long rank) throws IOException {
+    int index = (int) (rank / fRecordsPerBlock);
+    NexusBlock block;
+    synchronized (fCache) {
+      block = fCache.get(index);
+    }
+    if (block != null) {
+      fHits.incrementAndGet();
+      return block;
+    }
+    /* decompressed outside of the lock, another reader may do it too */
+    fMisses.incrementAndGet();
+    block = decode(index);
+    synchronized (fCache) {
+      fCache.put(index, block);
+    }
+    return block;
+  }
+
+  /**
+   * Find the first record at or after a time
+   *
+   * @param time
+   *          the time in microseconds
+   * @return the rank of the record, the number of records if there is none
+   * @throws IOException
+   *           if a block could not be read
+   */
+  long findRank(long time) throws IOException {
+    if (fFirstTimes.length == 0 || time > fLastTime) {
+      return fNbRecords;
+    }
+    int pos = Arrays.binarySearch(fFirstTimes, time);
+    /* equal times can span blocks, start from the first block that has some */
+    int index = (pos >= 0) ? pos : -pos - 2;
+    while (index > 0 && fFirstTimes[index] >= time) {
+      index--;
+    }
+    if (index < 0) {
+      return 0;
+    }
+    NexusBlock block = getBlock((long) index * fRecordsPerBlock);
+    long[] times = block.getTimes();
+    int lo = 0;
+    int hi = times.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (times[mid] < time) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return block.getFirstRank() + lo;
+  }
+
+  /**
+   * Close the file and drop the cache
+   */
+  void dispose() {
+    synchronized (fCache) {
+      fCache.clear();
+    }
+    try {
+      fChannel.close();
+    } catch (IOException e) {
+    }
+  }
+
+  private NexusBlock decode(int index) throws IOException {
+    long firstRank = (long) index * fRecordsPerBlock;
+    int count = (int) Math.min(fRecordsPerBlock, fNbRecords - firstRank);
+    ByteBuffer compressed = read(fPositions[index],
+        (int) (fPositions[index + 1] - fPositions[index]));
+    byte[] raw = new byte[8 + count * 8];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed.array(), 0, compressed.limit());
+      int length = 0;
+      while (length < raw.length && !inflater.finished()) {
+        int inflated = inflater.inflate(raw, length, raw.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != raw.length) {
+        throw new IOException("Truncated block " + index); //$NON-NLS-1$
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(e.getMessage(), e);
+    } finally {
+      inflater.end();
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(raw);
+    long[] times = new long[count];
+    byte[] types = new byte[count];
+    int[] payloads = new int[count];
+    long time = buffer.getLong();
+    int[] words = new int[count];
+    buffer.asIntBuffer().get(words);
+    for (int i = 0; i < count; i++) {
+      time += words[i] & 0x00000000ffffffffL;
+      times[i] = time;
+    }
+    buffer.position(8 + count * 4);
+    buffer.asIntBuffer().get(words);
+    for (int i = 0; i < count; i++) {
+      types[i] = (byte) ((words[i] >>> 26) & 0x03f);
+      payloads[i] = words[i] & 0x03ffffff;
+    }
+    return new NexusBlock(firstRank, times, types, payloads);
+  }
+
+  private ByteBuffer read(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (fChannel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of file"); //$NON-NLS-1$
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+}
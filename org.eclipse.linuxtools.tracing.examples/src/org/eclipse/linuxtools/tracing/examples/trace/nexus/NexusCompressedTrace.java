@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.linuxtools.tracing.examples.Activator;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventType;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfEventParser;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+
+/**
+ * Block-compressed Nexus trace, as written by {@link NexusCompressedWriter}.
+ *
+ * The records are the same as in a {@link NexusTrace} and are read as
+ * {@link NexusEvent}s. A rank is found in O(1) from the block table, a time
+ * with a binary search over the first times of the blocks and then within
+ * one block. Recently used blocks are kept decompressed in a small cache.
+ */
+public class NexusCompressedTrace extends TmfTrace implements ITmfEventParser {
+
+  /* above NexusTrace, which would also accept the header of this format */
+  private static final int CONFIDENCE = 30;
+
+  private volatile ITmfLocation fCurrent = new TmfLongLocation(0L);
+
+  private long fNbEvents;
+  private TmfEventType[] fTypes;
+  private NexusBlockFile fBlocks;
+
+  /**
+   * Check if a file is a compressed Nexus trace
+   *
+   * @param file
+   *          the file
+   * @return true if the file starts with the magic of this format
+   */
+  public static boolean isCompressed(File file) {
+    byte[] magic = new byte[NexusBlockFile.MAGIC.length];
+    try (InputStream in = new FileInputStream(file)) {
+      int length = 0;
+      int read;
+      while (length < magic.length
+          && (read = in.read(magic, length, magic.length - length)) > 0) {
+        length += read;
+      }
+      return length == magic.length && Arrays.equals(magic, NexusBlockFile.MAGIC);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public IStatus validate(IProject project, String path) {
+    File f = new File(path);
+    if (!f.isFile()) {
+      return new Status(IStatus.ERROR, Activator.PLUGIN_ID, path
+          + " is not a file"); //$NON-NLS-1$
+    }
+    if (!isCompressed(f)) {
+      return new Status(IStatus.ERROR, Activator.PLUGIN_ID, path
+          + " is not a compressed Nexus trace"); //$NON-NLS-1$
+    }
+    return new TraceValidationStatus(CONFIDENCE,
+        "org.eclipse.linuxtools.tracing.examples.trace.nexuscompressedtrace"); //$NON-NLS-1$
+  }
+
+  @Override
+  public void initTrace(IResource resource, String path,
+      Class<? extends ITmfEvent> type) throws TmfTraceException {
+    super.initTrace(resource, path, type);
+    File file = new File(path);
+    NexusHeader header = NexusHeader.read(file, NexusBlockFile.MAGIC.length);
+    if (header == null) {
+      throw new TmfTraceException(path + " does not have a header"); //$NON-NLS-1$
+    }
+    fTypes = NexusTrace.createEventTypes(header.getEventTypes());
+    try {
+      fBlocks = new NexusBlockFile(file);
+    } catch (IOException e) {
+      throw new TmfTraceException(e.getMessage(), e);
+    }
+    fNbEvents = fBlocks.getNbRecords();
+    if (fNbEvents > 0) {
+      setTimeRange(new TmfTimeRange(new TmfTimestamp(fBlocks.getFirstTime(),
+          ITmfTimestamp.MICROSECOND_SCALE), new TmfTimestamp(
+          fBlocks.getLastTime(), ITmfTimestamp.MICROSECOND_SCALE)));
+    }
+  }
+
+  /**
+   * The block table gives the rank of any time, the trace does not need
+   * checkpoints.
+   */
+  @Override
+  protected ITmfTraceIndexer createIndexer(int interval) {
+    return new NexusIndexer(this);
+  }
+
+  @Override
+  public long getNbEvents() {
+    return fNbEvents;
+  }
+
+  @Override
+  public ITmfLocation getCurrentLocation() {
+    return fCurrent;
+  }
+
+  @Override
+  public double getLocationRatio(ITmfLocation location) {
+    return ((TmfLongLocation) location).getLocationInfo().doubleValue()
+        / fNbEvents;
+  }
+
+  @Override
+  public ITmfContext seekEvent(ITmfLocation location) {
+    TmfLongLocation nl = (TmfLongLocation) location;
+    if (location == null) {
+      nl = new TmfLongLocation(0L);
+    }
+    fCurrent = nl;
+    return new NexusBlockContext(nl.getLocationInfo());
+  }
+
+  @Override
+  public ITmfContext seekEvent(long rank) {
+    return seekEvent(new TmfLongLocation(rank));
+  }
+
+  @Override
+  public ITmfContext seekEvent(double ratio) {
+    return seekEvent(new TmfLongLocation((long) (ratio * fNbEvents)));
+  }
+
+  @Override
+  public ITmfContext seekEvent(ITmfTimestamp timestamp) {
+    if (timestamp == null) {
+      return seekEvent((ITmfLocation) null);
+    }
+    long rank = 0;
+    try {
+      rank = fBlocks.findRank(timestamp.normalize(0,
+          ITmfTimestamp.MICROSECOND_SCALE).getValue());
+    } catch (IOException e) {
+    }
+    return seekEvent(new TmfLongLocation(rank));
+  }
+
+  @Override
+  public ITmfEvent getNext(ITmfContext context) {
+    return getNext(context, null);
+  }
+
+  /**
+   * Read the next event, decoding it in an existing event if there is one.
+   *
+   * @param context
+   *          the context to read from, it is moved to the next event
+   * @param reuse
+   *          the event to decode the record into, or null to create one
+   * @return the event, or null if the end of the trace was reached
+   * @see NexusTrace#getNext(ITmfContext, NexusEvent)
+   */
+  public NexusEvent getNext(ITmfContext context, NexusEvent reuse) {
+    long pos = context.getRank();
+    NexusEvent event = readEvent(context, pos, reuse);
+    if (event != null) {
+      if (!(context instanceof NexusBlockContext)) {
+        context.setLocation(new TmfLongLocation(pos + 1));
+      }
+      context.increaseRank();
+    }
+    return event;
+  }
+
+  @Override
+  public ITmfEvent parseEvent(ITmfContext context) {
+    return readEvent(context, context.getRank(), null);
+  }
+
+  /**
+   * Decode a block of records straight into primitive arrays.
+   *
+   * @param rank
+   *          the rank of the first record
+   * @param count
+   *          the number of records to read
+   * @param timestamps
+   *          receives the 64-bit times, in microseconds
+   * @param types
+   *          receives the type IDs
+   * @param payloads
+   *          receives the payloads
+   * @return the number of records read, less than count at the end of the
+   *         trace
+   * @throws IOException
+   *           if the records could not be read
+   * @see NexusTrace#readBatch(long, int, long[], byte[], int[])
+   */
+  public int readBatch(long rank, int count, long[] timestamps, byte[] types,
+      int[] payloads) throws IOException {
+    if (rank < 0 || rank >= fNbEvents) {
+      return 0;
+    }
+    int total = (int) Math.min(count, fNbEvents - rank);
+    int done = 0;
+    while (done < total) {
+      NexusBlock block = fBlocks.getBlock(rank + done);
+      int index = (int) (rank + done - block.getFirstRank());
+      int length = Math.min(total - done, block.getCount() - index);
+      System.arraycopy(block.getTimes(), index, timestamps, done, length);
+      System.arraycopy(block.getTypes(), index, types, done, length);
+      System.arraycopy(block.getPayloads(), index, payloads, done, length);
+      done += length;
+    }
+    return total;
+  }
+
+  /**
+   * Get the number of block reads served by the decompressed block cache
+   *
+   * @return the number of hits
+   */
+  public long getCacheHitCount() {
+    return fBlocks.getHitCount();
+  }
+
+  /**
+   * Get the number of blocks read from the file and decompressed
+   *
+   * @return the number of misses
+   */
+  public long getCacheMissCount() {
+    return fBlocks.getMissCount();
+  }
+
+  private NexusEvent readEvent(ITmfContext context, long rank, NexusEvent reuse) {
+    if (rank < 0 || rank >= fNbEvents) {
+      return null;
+    }
+    try {
+      NexusBlock block = (context instanceof NexusBlockContext)
+          ? ((NexusBlockContext) context).getBlock(fBlocks, rank)
+          : fBlocks.getBlock(rank);
+      int index = (int) (rank - block.getFirstRank());
+      int type = block.getTypes()[index];
+      NexusEvent event = (reuse != null) ? reuse : new NexusEvent(this);
+      event.set(rank, block.getTimes()[index], type,
+          block.getPayloads()[index], fTypes[type]);
+      return event;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public synchronized void dispose() {
+    super.dispose();
+    if (fBlocks != null) {
+      fBlocks.dispose();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a Nexus trace in the block-compressed format read by
+ * {@link NexusCompressedTrace}. The layout is described in
+ * {@link NexusBlockFile}.
+ *
+ * The times are stored as deltas, which are small and repetitive, and the
+ * columns of a block are compressed together with Deflate.
+ */
+public final class NexusCompressedWriter {
+
+  /** Default number of records per block, 512 KB once decompressed */
+  public static final int DEFAULT_RECORDS_PER_BLOCK = 65536;
+
+  private NexusCompressedWriter() {
+  }
+
+  /**
+   * Compress a trace with the default block size
+   *
+   * @param trace
+   *          the trace to compress
+   * @param target
+   *          the file to write
+   * @throws IOException
+   *           if the trace could not be read or the file written
+   */
+  public static void write(NexusTrace trace, File target) throws IOException {
+    write(trace, target, DEFAULT_RECORDS_PER_BLOCK);
+  }
+
+  /**
+   * Compress a trace
+   *
+   * @param trace
+   *          the trace to compress
+   * @param target
+   *          the file to write
+   * @param recordsPerBlock
+   *          the number of records in a block, bigger blocks compress better
+   *          but make random accesses slower
+   * @throws IOException
+   *           if the trace could not be read or the file written
+   */
+  public static void write(NexusTrace trace, File target, int recordsPerBlock)
+      throws IOException {
+    long nbRecords = trace.getNbEvents();
+    int nbBlocks = (int) ((nbRecords + recordsPerBlock - 1) / recordsPerBlock);
+    long[] positions = new long[nbBlocks];
+    long[] firstTimes = new long[nbBlocks];
+    long lastTime = 0;
+
+    long[] times = new long[recordsPerBlock];
+    byte[] types = new byte[recordsPerBlock];
+    int[] payloads = new int[recordsPerBlock];
+    ByteBuffer raw = ByteBuffer.allocate(8 + recordsPerBlock * 8);
+    byte[] compressed = new byte[1 << 16];
+    Deflater deflater = new Deflater();
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(
+        target), 1 << 16)) {
+      out.write(NexusBlockFile.MAGIC);
+      StringBuilder header = new StringBuilder();
+      for (String name : trace.getEventTypeNames()) {
+        if (header.length() > 0) {
+          header.append(',');
+        }
+        header.append(name);
+      }
+      header.append('\n');
+      byte[] headerBytes = header.toString().getBytes(StandardCharsets.UTF_8);
+      out.write(headerBytes);
+      long position = NexusBlockFile.MAGIC.length + headerBytes.length;
+
+      for (int block = 0; block < nbBlocks; block++) {
+        long rank = (long) block * recordsPerBlock;
+        int count = trace.readBatch(rank,
+            (int) Math.min(recordsPerBlock, nbRecords - rank), times, types,
+            payloads);
+        /* the columns, so that similar bytes are next to each other */
+        raw.clear();
+        raw.putLong(times[0]);
+        long previous = times[0];
+        for (int i = 0; i < count; i++) {
+          raw.putInt((int) (times[i] - previous));
+          previous = times[i];
+        }
+        for (int i = 0; i < count; i++) {
+          raw.putInt((types[i] << 26) | payloads[i]);
+        }
+        positions[block] = position;
+        firstTimes[block] = times[0];
+        lastTime = times[count - 1];
+
+        deflater.reset();
+        deflater.setInput(raw.array(), 0, raw.position());
+        deflater.finish();
+        while (!deflater.finished()) {
+          int length = deflater.deflate(compressed);
+          out.write(compressed, 0, length);
+          position += length;
+        }
+      }
+
+      ByteBuffer table = ByteBuffer.allocate(nbBlocks
+          * NexusBlockFile.TABLE_ENTRY_SIZE + NexusBlockFile.TAIL_SIZE);
+      for (int block = 0; block < nbBlocks; block++) {
+        table.putLong(positions[block]).putLong(firstTimes[block]);
+      }
+      table.putLong(position).putInt(nbBlocks).putInt(recordsPerBlock)
+          .putLong(nbRecords).putLong(lastTime).put(NexusBlockFile.MAGIC);
+      out.write(table.array());
+    } finally {
+      deflater.end();
+    }
+  }
+}
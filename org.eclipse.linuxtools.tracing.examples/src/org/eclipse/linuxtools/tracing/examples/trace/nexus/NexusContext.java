@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+
+/**
+ * Context of a Nexus trace. It carries its own read cursor in the mapped
+ * regions of the trace, so several contexts can be read concurrently without
+ * sharing any state.
+ *
+ * The location is the rank of the next record to read, it is derived from the
+ * rank when it is asked for instead of being created for every event.
+ */
+class NexusContext extends TmfContext {
+
+  /* the region being read, records [fRegionStart, fRegionEnd[ */
+  private ByteBuffer fRegion;
+  private long fRegionStart;
+  private long fRegionEnd;
+
+  /**
+   * Constructor
+   *
+   * @param rank
+   *          the rank of the next record to read
+   */
+  public NexusContext(long rank) {
+    super(new TmfLongLocation(rank), rank);
+  }
+
+  @Override
+  public ITmfLocation getLocation() {
+    return new TmfLongLocation(getRank());
+  }
+
+  /**
+   * Move the cursor on a record. Only a bounds check unless the record is in
+   * another region than the one being read.
+   *
+   * @param mapping
+   *          the mapping manager of the trace
+   * @param rank
+   *          the rank of the record
+   * @param recordSize
+   *          the size of a record
+   * @return the index of the record in {@link #getRegion()}
+   * @throws IOException
+   *           if the region could not be mapped
+   */
+  int moveTo(NexusMappingManager mapping, long rank, int recordSize)
+      throws IOException {
+    if (fRegion == null || rank < fRegionStart || rank >= fRegionEnd) {
+      /* our own view, the shared one is not touched */
+      fRegion = mapping.getRegion(rank).duplicate();
+      fRegionStart = mapping.getRegionStart(rank);
+      fRegionEnd = fRegionStart + fRegion.capacity() / recordSize;
+    }
+    return (int) ((rank - fRegionStart) * recordSize);
+  }
+
+  /**
+   * Get the region the cursor is in
+   *
+   * @return the region, only valid after {@link #moveTo}
+   */
+  ByteBuffer getRegion() {
+    return fRegion;
+  }
+}
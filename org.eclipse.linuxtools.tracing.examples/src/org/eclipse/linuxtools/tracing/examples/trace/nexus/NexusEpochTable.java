@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Wrap epochs of a Nexus trace.
+ *
+ * The records only have 32 bits of microseconds, which wrap after about 71
+ * minutes. This table holds the rank of the first record of every epoch after
+ * the first one, the 64-bit time of a record is its epoch number in the upper
+ * 32 bits and its raw time in the lower ones.
+ *
+ * Since the records are a fixed size and the time grows within an epoch, a
+ * rank can be found from a time with a binary search over the mapped records,
+ * without any other index.
+ *
+ * The wraps are found by probing one record every {@link #PROBE_STRIDE}
+ * records, and then bisecting between the two probes where the time went
+ * down. This assumes there is less than one full wrap (2^32 us) between two
+ * probes, that is an average of more than 16 records per second.
+ */
+final class NexusEpochTable {
+
+  /** Number of records between two probes when looking for the wraps */
+  static final long PROBE_STRIDE = 65536;
+
+  private static final long RAW_MASK = 0x00000000ffffffffL;
+
+  private final NexusMappingManager fMapping;
+  private final int fRecordSize;
+  private volatile long fNbRecords;
+  /* rank of the first record of epoch i + 1 */
+  private volatile long[] fWraps;
+
+  /**
+   * Find the wrap epochs of a trace
+   *
+   * @param mapping
+   *          the mapping of the records
+   * @param recordSize
+   *          the size of a record, the time is its first 32 bits
+   * @param nbRecords
+   *          the number of records
+   * @throws IOException
+   *           if the records could not be read
+   */
+  NexusEpochTable(NexusMappingManager mapping, int recordSize, long nbRecords)
+      throws IOException {
+    fMapping = mapping;
+    fRecordSize = recordSize;
+    fNbRecords = 0;
+    fWraps = new long[0];
+    extend(nbRecords);
+  }
+
+  /**
+   * Look for wraps in new records appended to the trace
+   *
+   * @param nbRecords
+   *          the new number of records
+   * @throws IOException
+   *           if the records could not be read
+   */
+  synchronized void extend(long nbRecords) throws IOException {
+    if (nbRecords <= fNbRecords) {
+      return;
+    }
+    long[] wraps = Arrays.copyOf(fWraps, fWraps.length + 8);
+    int nbWraps = fWraps.length;
+    long prevRank = Math.max(0, fNbRecords - 1);
+    long prevRaw = readRaw(prevRank);
+    long rank = prevRank;
+    while (rank < nbRecords - 1) {
+      rank = Math.min(rank + PROBE_STRIDE, nbRecords - 1);
+      long raw = readRaw(rank);
+      if (raw < prevRaw) {
+        /*
+         * first record after prevRank which is before prevRaw, the ones before
+         * the wrap are after it and the ones after are before raw.
+         */
+        long lo = prevRank + 1;
+        long hi = rank;
+        while (lo < hi) {
+          long mid = (lo + hi) >>> 1;
+          if (readRaw(mid) < prevRaw) {
+            hi = mid;
+          } else {
+            lo = mid + 1;
+          }
+        }
+        if (nbWraps == wraps.length) {
+          wraps = Arrays.copyOf(wraps, nbWraps * 2);
+        }
+        wraps[nbWraps++] = lo;
+      }
+      prevRank = rank;
+      prevRaw = raw;
+    }
+    fWraps = Arrays.copyOf(wraps, nbWraps);
+    fNbRecords = nbRecords;
+  }
+
+  /**
+   * Get the number of wraps
+   *
+   * @return the number of epochs minus one
+   */
+  int getNbWraps() {
+    return fWraps.length;
+  }
+
+  /**
+   * Get the epoch of a record
+   *
+   * @param rank
+   *          the rank of the record
+   * @return the epoch, the upper 32 bits of its time
+   */
+  long getEpoch(long rank) {
+    long[] wraps = fWraps;
+    if (wraps.length == 0 || rank < wraps[0]) {
+      return 0;
+    }
+    int pos = Arrays.binarySearch(wraps, rank);
+    /* on a wrap rank, the record is the first of the next epoch */
+    return (pos >= 0) ? pos + 1 : -pos - 1;
+  }
+
+  /**
+   * Get the first wrap after a record, records from {@code rank} to the
+   * returned rank (excluded) are in the same epoch.
+   *
+   * @param rank
+   *          the rank of the record
+   * @return the rank of the first record of the next epoch, or
+   *         {@link Long#MAX_VALUE} if the record is in the last epoch
+   */
+  long getNextWrap(long rank) {
+    long[] wraps = fWraps;
+    int pos = Arrays.binarySearch(wraps, rank);
+    int next = (pos >= 0) ? pos + 1 : -pos - 1;
+    return (next < wraps.length) ? wraps[next] : Long.MAX_VALUE;
+  }
+
+  /**
+   * Get the 64-bit time of a record
+   *
+   * @param rank
+   *          the rank of the record
+   * @param raw
+   *          the 32-bit time of the record
+   * @return the time in microseconds
+   */
+  long getTime(long rank, long raw) {
+    return (getEpoch(rank) << 32) | (raw & RAW_MASK);
+  }
+
+  /**
+   * Get the 64-bit time of a record
+   *
+   * @param rank
+   *          the rank of the record
+   * @return the time in microseconds
+   * @throws IOException
+   *           if the record could not be read
+   */
+  long getTime(long rank) throws IOException {
+    return getTime(rank, readRaw(rank));
+  }
+
+  /**
+   * Find the first record at or after a time, in O(log n)
+   *
+   * @param time
+   *          the time in microseconds
+   * @return the rank of the first record whose time is at or after
+   *         {@code time}, the number of records if there is none
+   * @throws IOException
+   *           if the records could not be read
+   */
+  long findRank(long time) throws IOException {
+    if (time <= 0) {
+      return 0;
+    }
+    long[] wraps = fWraps;
+    long nbRecords = fNbRecords;
+    long epoch = time >>> 32;
+    if (epoch > wraps.length) {
+      return nbRecords;
+    }
+    long lo = (epoch == 0) ? 0 : wraps[(int) epoch - 1];
+    long hi = (epoch == wraps.length) ? nbRecords : wraps[(int) epoch];
+    long target = time & RAW_MASK;
+    while (lo < hi) {
+      long mid = (lo + hi) >>> 1;
+      if (readRaw(mid) < target) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private long readRaw(long rank) throws IOException {
+    ByteBuffer region = fMapping.getRegion(rank);
+    int index = (int) ((rank - fMapping.getRegionStart(rank)) * fRecordSize);
+    return region.getInt(index) & RAW_MASK;
+  }
+}
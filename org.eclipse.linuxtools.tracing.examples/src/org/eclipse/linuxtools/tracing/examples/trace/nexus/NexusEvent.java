@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventType;
+import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+/**
+ * Nexus event.
+ *
+ * The decoded record is kept as primitives, the timestamp and the payload
+ * field are only built the first time they are read. The event type is the
+ * one interned by the trace for the record's type ID.
+ *
+ * Events read from a {@link NexusMultiCoreTrace} are tagged with the core
+ * they were captured on, which is also in their content.
+ *
+ * An instance can be reused as a flyweight with
+ * {@link NexusTrace#getNext(ITmfContext, NexusEvent)}, in which case it is only
+ * valid until the next call that reuses it.
+ */
+public class NexusEvent extends TmfEvent {
+
+  private static final String VALUE_FIELD = "value"; //$NON-NLS-1$
+
+  /** Name of the field holding the core of an event of a multi-core trace */
+  public static final String CORE_FIELD = "core"; //$NON-NLS-1$
+
+  /** Core of an event which does not come from a multi-core trace */
+  public static final int NO_CORE = -1;
+
+  private long fRank = ITmfContext.UNKNOWN_RANK;
+  private long fTime;
+  private int fTypeId;
+  private int fPayload;
+  private int fCore = NO_CORE;
+  private ITmfEventType fType;
+
+  /* Built lazily */
+  private ITmfTimestamp fTimestamp;
+  private ITmfEventField fContent;
+
+  /**
+   * Constructor, the event is empty until the trace decodes a record into it
+   *
+   * @param trace
+   *          the trace the records come from, a {@link NexusTrace} or a
+   *          {@link NexusCompressedTrace} or a {@link NexusMultiCoreTrace}
+   */
+  public NexusEvent(ITmfTrace trace) {
+    super(trace, ITmfContext.UNKNOWN_RANK, null, null, null);
+  }
+
+  /**
+   * Load a decoded record in this event
+   *
+   * @param rank
+   *          the rank of the record
+   * @param time
+   *          the time in microseconds
+   * @param typeId
+   *          the type ID, 0 to 63
+   * @param payload
+   *          the 26-bit payload
+   * @param type
+   *          the interned event type of this type ID
+   */
+  void set(long rank, long time, int typeId, int payload, ITmfEventType type) {
+    set(rank, time, typeId, payload, type, NO_CORE);
+  }
+
+  /**
+   * Load a decoded record of a multi-core trace in this event
+   *
+   * @param rank
+   *          the rank of the record in the merged trace
+   * @param time
+   *          the time in microseconds
+   * @param typeId
+   *          the type ID, 0 to 63
+   * @param payload
+   *          the 26-bit payload
+   * @param type
+   *          the interned event type of this type ID
+   * @param core
+   *          the core the record was captured on
+   */
+  void set(long rank, long time, int typeId, int payload, ITmfEventType type,
+      int core) {
+    fCore = core;
+    fRank = rank;
+    fTime = time;
+    fTypeId = typeId;
+    fPayload = payload;
+    fType = type;
+    fTimestamp = null;
+    fContent = null;
+  }
+
+  /**
+   * Get the time of the record without creating a timestamp
+   *
+   * @return the time in microseconds
+   */
+  public long getTime() {
+    return fTime;
+  }
+
+  /**
+   * Get the type of the record without going through the event type
+   *
+   * @return the type ID, 0 to 63
+   */
+  public int getTypeId() {
+    return fTypeId;
+  }
+
+  /**
+   * Get the payload of the record without creating the content field
+   *
+   * @return the 26-bit payload
+   */
+  public int getPayload() {
+    return fPayload;
+  }
+
+  /**
+   * Get the core the record was captured on
+   *
+   * @return the index of the core, or {@link #NO_CORE}
+   */
+  public int getCore() {
+    return fCore;
+  }
+
+  @Override
+  public long getRank() {
+    return fRank;
+  }
+
+  @Override
+  public ITmfTimestamp getTimestamp() {
+    ITmfTimestamp timestamp = fTimestamp;
+    if (timestamp == null) {
+      // the time is in microseconds.
+      timestamp = new TmfTimestamp(fTime, ITmfTimestamp.MICROSECOND_SCALE);
+      fTimestamp = timestamp;
+    }
+    return timestamp;
+  }
+
+  @Override
+  public ITmfEventType getType() {
+    return fType;
+  }
+
+  @Override
+  public ITmfEventField getContent() {
+    ITmfEventField content = fContent;
+    if (content == null) {
+      // put the value in a field, the field must be in an array
+      final TmfEventField value = new TmfEventField(VALUE_FIELD, fPayload, null);
+      final TmfEventField[] fields = (fCore == NO_CORE) ? new TmfEventField[] { value }
+          : new TmfEventField[] { value, new TmfEventField(CORE_FIELD, fCore, null) };
+      content = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, fields);
+      fContent = content;
+    }
+    return content;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = getTrace() == null ? 0 : getTrace().hashCode();
+    result = prime * result + (int) (fRank ^ (fRank >>> 32));
+    result = prime * result + (int) (fTime ^ (fTime >>> 32));
+    result = prime * result + fTypeId;
+    result = prime * result + fPayload;
+    result = prime * result + fCore;
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof NexusEvent)) {
+      return false;
+    }
+    NexusEvent other = (NexusEvent) obj;
+    return getTrace() == other.getTrace() && fRank == other.fRank
+        && fTime == other.fTime && fTypeId == other.fTypeId
+        && fPayload == other.fPayload && fCore == other.fCore;
+  }
+
+  @Override
+  @SuppressWarnings("nls")
+  public String toString() {
+    return "NexusEvent [rank=" + fRank + ", time=" + fTime + ", type="
+        + (fType == null ? null : fType.getName()) + ", payload=" + fPayload
+        + (fCore == NO_CORE ? "" : ", core=" + fCore) + "]";
+  }
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Header of a Nexus trace: one line with the comma separated names of the 64
+ * event types, followed by the binary records.
+ */
+final class NexusHeader {
+
+  /** 64 values of types according to the spec */
+  static final int NO_OF_EVENTS = 64;
+
+  /* a header longer than this is not a Nexus header */
+  private static final int MAX_HEADER_SIZE = 65536;
+
+  /*
+   * the last header read at the start of a file, TMF validates a trace on a
+   * throwaway instance before the real one reads the header again
+   */
+  private static volatile NexusHeader sLastRead;
+
+  private final File fFile;
+  private final long fSize;
+  private final long fLastModified;
+  private final String[] fEventTypes;
+  private final long fDataOffset;
+
+  private NexusHeader(File file, String[] eventTypes, long dataOffset) {
+    fFile = file;
+    fSize = file.length();
+    fLastModified = file.lastModified();
+    fEventTypes = eventTypes;
+    fDataOffset = dataOffset;
+  }
+
+  /**
+   * Read the header of a file, or reuse the one read last if the file did
+   * not change since
+   *
+   * @param file
+   *          the file
+   * @return the header, or null if the file does not start with a line of 64
+   *         event type names
+   */
+  static NexusHeader read(File file) {
+    NexusHeader header = sLastRead;
+    if (header != null && header.isFor(file)) {
+      return header;
+    }
+    header = read(file, 0);
+    if (header != null) {
+      sLastRead = header;
+    }
+    return header;
+  }
+
+  /**
+   * Read a header which is not at the start of a file
+   *
+   * @param file
+   *          the file
+   * @param start
+   *          the position of the header in the file
+   * @return the header, or null if there is not a line of 64 event type names
+   *         at that position
+   */
+  static NexusHeader read(File file, long start) {
+    byte[] line = new byte[MAX_HEADER_SIZE];
+    int length = 0;
+    try (FileInputStream in = new FileInputStream(file)) {
+      in.getChannel().position(start);
+      int read = 0;
+      while (length < line.length && (read = in.read(line, length, line.length - length)) > 0) {
+        for (int i = length; i < length + read; i++) {
+          if (line[i] == '\n') {
+            String header = new String(line, 0, i, StandardCharsets.UTF_8);
+            String[] eventTypes = header.split(",", NO_OF_EVENTS); //$NON-NLS-1$
+            if (eventTypes.length != NO_OF_EVENTS) {
+              return null;
+            }
+            return new NexusHeader(file, eventTypes, start + i + 1);
+          }
+        }
+        length += read;
+      }
+    } catch (IOException e) {
+    }
+    return null;
+  }
+
+  /**
+   * Check if this header was read from a file as it is now
+   *
+   * @param file
+   *          the file
+   * @return true if the header is the one of that file
+   */
+  boolean isFor(File file) {
+    return fFile.equals(file) && fSize == file.length()
+        && fLastModified == file.lastModified();
+  }
+
+  /**
+   * Get the names of the event types
+   *
+   * @return the 64 names, indexed by type ID
+   */
+  String[] getEventTypes() {
+    return fEventTypes;
+  }
+
+  /**
+   * Get the position of the first record
+   *
+   * @return the offset of the records in the file
+   */
+  long getDataOffset() {
+    return fDataOffset;
+  }
+}
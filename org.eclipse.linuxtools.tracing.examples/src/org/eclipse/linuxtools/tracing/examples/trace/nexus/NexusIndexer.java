@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import org.eclipse.tracecompass.tmf.core.signal.TmfTraceUpdatedSignal;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+
+/**
+ * Indexer of a Nexus trace.
+ *
+ * Nothing needs to be read to index a Nexus trace: the records are a fixed
+ * size, so the location of any rank is computed, and the wrap epochs (or the
+ * block table of a compressed trace) give the rank of any time. The trace sets
+ * its time range when it is initialized, building the index only announces
+ * it.
+ */
+class NexusIndexer implements ITmfTraceIndexer {
+
+  private final TmfTrace fTrace;
+
+  /**
+   * Constructor
+   *
+   * @param trace
+   *          the trace to index
+   */
+  public NexusIndexer(TmfTrace trace) {
+    fTrace = trace;
+  }
+
+  @Override
+  public boolean isIndexing() {
+    return false;
+  }
+
+  @Override
+  public void buildIndex(long offset, TmfTimeRange range,
+      boolean waitForCompletion) {
+    if (fTrace.getNbEvents() > 0) {
+      fTrace.broadcast(new TmfTraceUpdatedSignal(fTrace, fTrace,
+          fTrace.getTimeRange(), fTrace.getNbEvents()));
+    }
+  }
+
+  @Override
+  public void updateIndex(ITmfContext context, ITmfTimestamp timestamp) {
+    /* Nothing to remember, every rank can be computed */
+  }
+
+  @Override
+  public ITmfContext seekIndex(ITmfTimestamp timestamp) {
+    return fTrace.seekEvent(timestamp);
+  }
+
+  @Override
+  public ITmfContext seekIndex(long rank) {
+    return fTrace.seekEvent(new TmfLongLocation(rank));
+  }
+
+  @Override
+  public void dispose() {
+  }
+}
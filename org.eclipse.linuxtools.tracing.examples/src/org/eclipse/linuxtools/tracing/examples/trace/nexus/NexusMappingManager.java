@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps the records of a trace file in large regions and keeps the most
+ * recently used ones, so that moving around in the trace is only a position
+ * change in an already mapped region.
+ *
+ * The file is mapped as a single region when its records fit in one mapping.
+ * A larger, an empty or a growing file is cut in regions of
+ * {@link #DEFAULT_REGION_SIZE} bytes. A region is always a whole number of
+ * records, so a record never straddles two regions.
+ */
+public class NexusMappingManager {
+
+  /** Size of a region when the file does not fit in a single mapping */
+  public static final long DEFAULT_REGION_SIZE = 256L * 1024 * 1024;
+
+  /** Number of regions kept mapped */
+  private static final int MAX_REGIONS = 4;
+
+  /* /proc/self/stat fields (1-based) of the page fault counters */
+  private static final int MINFLT_FIELD = 10;
+  private static final int MAJFLT_FIELD = 12;
+  private static final String PROC_STAT = "/proc/self/stat"; //$NON-NLS-1$
+
+  private final FileChannel fChannel;
+  private final long fDataOffset;
+  private final int fRecordSize;
+  private final long fRecordsPerRegion;
+  private volatile long fNbRecords;
+
+  private final Map<Long, MappedByteBuffer> fRegions = new LinkedHashMap<Long, MappedByteBuffer>(
+      MAX_REGIONS + 1, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+      /*
+       * There is no way to unmap explicitly, the region is unmapped when the
+       * buffer is garbage collected.
+       */
+      return size() > MAX_REGIONS;
+    }
+  };
+
+  private final AtomicLong fRemaps = new AtomicLong();
+  private final AtomicLong fHits = new AtomicLong();
+
+  /**
+   * Constructor
+   *
+   * @param channel
+   *          the channel of the trace file
+   * @param dataOffset
+   *          the position of the first record in the file
+   * @param recordSize
+   *          the size of a record in bytes
+   * @param nbRecords
+   *          the number of records in the file
+   */
+  public NexusMappingManager(FileChannel channel, long dataOffset,
+      int recordSize, long nbRecords) {
+    this(channel, dataOffset, recordSize, nbRecords, false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param channel
+   *          the channel of the trace file
+   * @param dataOffset
+   *          the position of the first record in the file
+   * @param recordSize
+   *          the size of a record in bytes
+   * @param nbRecords
+   *          the number of records in the file
+   * @param growing
+   *          true if the file is still being written, the regions are then
+   *          sized for the file to come rather than the current one
+   */
+  public NexusMappingManager(FileChannel channel, long dataOffset,
+      int recordSize, long nbRecords, boolean growing) {
+    fChannel = channel;
+    fDataOffset = dataOffset;
+    fRecordSize = recordSize;
+    fNbRecords = nbRecords;
+    long wholeFile = nbRecords * recordSize;
+    /* an empty file gets full regions too, in case it is appended to */
+    long regionSize = (wholeFile > 0 && wholeFile <= Integer.MAX_VALUE && !growing)
+        ? wholeFile : DEFAULT_REGION_SIZE;
+    fRecordsPerRegion = Math.max(1, regionSize / recordSize);
+  }
+
+  /**
+   * Get the number of records in a region
+   *
+   * @return the number of records a full region holds
+   */
+  public long getRecordsPerRegion() {
+    return fRecordsPerRegion;
+  }
+
+  /**
+   * Get the rank of the first record of the region holding a record
+   *
+   * @param rank
+   *          the rank of the record
+   * @return the rank of the first record of its region
+   */
+  public long getRegionStart(long rank) {
+    return (rank / fRecordsPerRegion) * fRecordsPerRegion;
+  }
+
+  /**
+   * Get the mapped region holding a record. The returned buffer is shared, its
+   * position must not be relied upon; read it with absolute gets or through a
+   * duplicate.
+   *
+   * @param rank
+   *          the rank of the record
+   * @return the region, record {@code rank} is at byte
+   *         {@code (rank - getRegionStart(rank)) * recordSize}
+   * @throws IOException
+   *           if the region could not be mapped
+   */
+  public synchronized ByteBuffer getRegion(long rank) throws IOException {
+    final Long start = getRegionStart(rank);
+    final long count = Math.min(fRecordsPerRegion, fNbRecords - start);
+    MappedByteBuffer region = fRegions.get(start);
+    if (region != null && region.capacity() >= count * fRecordSize) {
+      fHits.incrementAndGet();
+      return region;
+    }
+    region = fChannel.map(MapMode.READ_ONLY, fDataOffset + start
+        * fRecordSize, count * fRecordSize);
+    fRemaps.incrementAndGet();
+    fRegions.put(start, region);
+    return region;
+  }
+
+  /**
+   * Update the number of records of the file, when it grows. The regions that
+   * do not cover the new records are remapped when they are next used.
+   *
+   * @param nbRecords
+   *          the new number of records
+   */
+  public void setNbRecords(long nbRecords) {
+    fNbRecords = nbRecords;
+  }
+
+  /**
+   * Drop all the mapped regions
+   */
+  public synchronized void clear() {
+    fRegions.clear();
+  }
+
+  /**
+   * Get the number of times a region had to be mapped
+   *
+   * @return the number of map calls
+   */
+  public long getRemapCount() {
+    return fRemaps.get();
+  }
+
+  /**
+   * Get the number of region lookups served by an already mapped region
+   *
+   * @return the number of hits
+   */
+  public long getHitCount() {
+    return fHits.get();
+  }
+
+  /**
+   * Get the minor page faults of the process (page in the page cache)
+   *
+   * @return the number of minor faults, or -1 if it is not available on this
+   *         platform
+   */
+  public static long getMinorPageFaults() {
+    return readProcStat(MINFLT_FIELD);
+  }
+
+  /**
+   * Get the major page faults of the process (page read from the disk)
+   *
+   * @return the number of major faults, or -1 if it is not available on this
+   *         platform
+   */
+  public static long getMajorPageFaults() {
+    return readProcStat(MAJFLT_FIELD);
+  }
+
+  private static long readProcStat(int field) {
+    try (BufferedReader br = new BufferedReader(new FileReader(PROC_STAT));) {
+      String line = br.readLine();
+      if (line == null) {
+        return -1;
+      }
+      /* the command name is in parentheses and may contain spaces */
+      String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" "); //$NON-NLS-1$
+      /* fields[0] is field 3 (state) */
+      return Long.parseLong(fields[field - 3]);
+    } catch (IOException | RuntimeException e) {
+      return -1;
+    }
+  }
+}
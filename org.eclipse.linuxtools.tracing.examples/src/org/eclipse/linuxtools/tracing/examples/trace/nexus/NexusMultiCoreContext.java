@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.IOException;
+
+import org.eclipse.tracecompass.tmf.core.event.TmfEventType;
+import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+
+/**
+ * Context of a {@link NexusMultiCoreTrace}, it merges the records of the cores
+ * by time.
+ *
+ * Each core has a small buffer of decoded records, filled with
+ * {@link NexusRecordFile#readBatch}. The cores are in a binary heap of core indices
+ * keyed by the time of their next record, ties going to the lowest core, so
+ * the merge compares longs and creates no object per record.
+ */
+class NexusMultiCoreContext extends TmfContext {
+
+  /* records decoded at once for one core */
+  private static final int BATCH_SIZE = 256;
+
+  private final NexusRecordFile[] fCores;
+  private final long[] fCounts;
+  /* rank of the next record of each core */
+  private final long[] fNext;
+
+  private final long[][] fTimes;
+  private final byte[][] fTypes;
+  private final int[][] fPayloads;
+  private final int[] fPos;
+  private final int[] fLength;
+
+  private final int[] fHeap;
+  private int fHeapSize;
+
+  /**
+   * Constructor
+   *
+   * @param cores
+   *          the record files of the cores
+   * @param counts
+   *          the number of records of each core
+   * @param location
+   *          the location to start from
+   */
+  public NexusMultiCoreContext(NexusRecordFile[] cores, long[] counts,
+      NexusMultiCoreLocation location) {
+    super(location, location.getRank());
+    int nbCores = cores.length;
+    fCores = cores;
+    fCounts = counts;
+    fNext = new long[nbCores];
+    fTimes = new long[nbCores][];
+    fTypes = new byte[nbCores][];
+    fPayloads = new int[nbCores][];
+    fPos = new int[nbCores];
+    fLength = new int[nbCores];
+    fHeap = new int[nbCores];
+    for (int core = 0; core < nbCores; core++) {
+      fNext[core] = location.getCoreRank(core);
+      if (fill(core)) {
+        push(core);
+      }
+    }
+  }
+
+  @Override
+  public ITmfLocation getLocation() {
+    return new NexusMultiCoreLocation(getRank(), fNext.clone());
+  }
+
+  /**
+   * Decode the next record of the merged stream in an event and move past it
+   *
+   * @param event
+   *          the event to decode the record into
+   * @param types
+   *          the interned event types, per core and type ID
+   * @return false if there are no more records
+   */
+  boolean next(NexusEvent event, TmfEventType[][] types) {
+    if (fHeapSize == 0) {
+      return false;
+    }
+    int core = fHeap[0];
+    int pos = fPos[core];
+    int type = fTypes[core][pos];
+    event.set(getRank(), fTimes[core][pos], type, fPayloads[core][pos],
+        types[core][type], core);
+    fNext[core]++;
+    fPos[core]++;
+    if (fPos[core] == fLength[core] && !fill(core)) {
+      /* the core is done, the last one of the heap takes its place */
+      fHeap[0] = fHeap[--fHeapSize];
+    }
+    siftDown(0);
+    increaseRank();
+    return true;
+  }
+
+  /*
+   * Decode the next records of a core, false if it is done. A core that can
+   * not be read is done, like the end of a single trace that can not be read.
+   */
+  private boolean fill(int core) {
+    long remaining = fCounts[core] - fNext[core];
+    if (remaining <= 0) {
+      return false;
+    }
+    if (fTimes[core] == null) {
+      fTimes[core] = new long[BATCH_SIZE];
+      fTypes[core] = new byte[BATCH_SIZE];
+      fPayloads[core] = new int[BATCH_SIZE];
+    }
+    try {
+      fLength[core] = fCores[core].readBatch(fNext[core],
+          (int) Math.min(BATCH_SIZE, remaining), fTimes[core], fTypes[core],
+          fPayloads[core]);
+    } catch (IOException e) {
+      fLength[core] = 0;
+    }
+    fPos[core] = 0;
+    return fLength[core] > 0;
+  }
+
+  /* core a's next record comes before core b's */
+  private boolean before(int a, int b) {
+    long timeA = fTimes[a][fPos[a]];
+    long timeB = fTimes[b][fPos[b]];
+    return timeA < timeB || (timeA == timeB && a < b);
+  }
+
+  private void push(int core) {
+    int i = fHeapSize++;
+    fHeap[i] = core;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (!before(fHeap[i], fHeap[parent])) {
+        break;
+      }
+      swap(i, parent);
+      i = parent;
+    }
+  }
+
+  private void siftDown(int start) {
+    int i = start;
+    while (true) {
+      int left = 2 * i + 1;
+      if (left >= fHeapSize) {
+        return;
+      }
+      int child = (left + 1 < fHeapSize && before(fHeap[left + 1], fHeap[left]))
+          ? left + 1 : left;
+      if (!before(fHeap[child], fHeap[i])) {
+        return;
+      }
+      swap(i, child);
+      i = child;
+    }
+  }
+
+  private void swap(int i, int j) {
+    int tmp = fHeap[i];
+    fHeap[i] = fHeap[j];
+    fHeap[j] = tmp;
+  }
+}
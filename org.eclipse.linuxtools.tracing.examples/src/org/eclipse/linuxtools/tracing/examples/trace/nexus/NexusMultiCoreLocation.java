@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+
+/**
+ * Location in a {@link NexusMultiCoreTrace}: the rank in the merged stream,
+ * and the rank of the next record of every core.
+ *
+ * The merged rank alone identifies the location, and is the location info.
+ * The per-core ranks are what it takes to resume the merge there, they save a
+ * search when the location is seeked.
+ */
+public final class NexusMultiCoreLocation implements ITmfLocation {
+
+  private final long fRank;
+  private final long[] fCoreRanks;
+
+  /**
+   * Constructor
+   *
+   * @param rank
+   *          the rank in the merged stream
+   * @param coreRanks
+   *          the rank of the next record of each core, the array is not
+   *          copied
+   */
+  public NexusMultiCoreLocation(long rank, long[] coreRanks) {
+    fRank = rank;
+    fCoreRanks = coreRanks;
+  }
+
+  /**
+   * Constructor, from a serialized location
+   *
+   * @param bufferIn
+   *          the buffer to read the location from
+   */
+  public NexusMultiCoreLocation(ByteBuffer bufferIn) {
+    fRank = bufferIn.getLong();
+    fCoreRanks = new long[bufferIn.getInt()];
+    for (int i = 0; i < fCoreRanks.length; i++) {
+      fCoreRanks[i] = bufferIn.getLong();
+    }
+  }
+
+  @Override
+  public Long getLocationInfo() {
+    return fRank;
+  }
+
+  /**
+   * Get the rank in the merged stream
+   *
+   * @return the rank
+   */
+  public long getRank() {
+    return fRank;
+  }
+
+  /**
+   * Get the rank of the next record of a core
+   *
+   * @param core
+   *          the index of the core
+   * @return the rank in the file of the core
+   */
+  public long getCoreRank(int core) {
+    return fCoreRanks[core];
+  }
+
+  /**
+   * Get the number of cores
+   *
+   * @return the number of per-core ranks
+   */
+  public int getNbCores() {
+    return fCoreRanks.length;
+  }
+
+  @Override
+  public void serialize(ByteBuffer bufferOut) {
+    bufferOut.putLong(fRank);
+    bufferOut.putInt(fCoreRanks.length);
+    for (long rank : fCoreRanks) {
+      bufferOut.putLong(rank);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (int) (fRank ^ (fRank >>> 32)) + Arrays.hashCode(fCoreRanks);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof NexusMultiCoreLocation)) {
+      return false;
+    }
+    NexusMultiCoreLocation other = (NexusMultiCoreLocation) obj;
+    return fRank == other.fRank && Arrays.equals(fCoreRanks, other.fCoreRanks);
+  }
+
+  @Override
+  @SuppressWarnings("nls")
+  public String toString() {
+    return "NexusMultiCoreLocation [rank=" + fRank + ", cores="
+        + Arrays.toString(fCoreRanks) + "]";
+  }
+}
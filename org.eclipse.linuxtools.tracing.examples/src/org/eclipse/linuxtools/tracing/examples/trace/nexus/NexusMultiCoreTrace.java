@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.linuxtools.tracing.examples.Activator;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventType;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfEventParser;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+
+/**
+ * Directory of Nexus traces, one per core, read as a single trace merged by
+ * time.
+ *
+ * The files are the cores in the order of their names. The merge is a k-way
+ * merge over the mapped records of the cores (see
+ * {@link NexusMultiCoreContext}), each event is tagged with its core. A core
+ * is only a {@link NexusRecordFile}, not a trace of its own, and the files are
+ * read as they are when the directory is opened.
+ *
+ * The merged stream orders the records by time, then by core, so the rank of
+ * a time is the sum of the ranks of that time in every core. A rank is found
+ * back with a binary search over the time, so both kinds of seek stay in
+ * O(log n) per core and no checkpoint is needed.
+ */
+public class NexusMultiCoreTrace extends TmfTrace implements ITmfEventParser {
+
+  private volatile ITmfLocation fCurrent;
+
+  private NexusRecordFile[] fCores = new NexusRecordFile[0];
+  private String[] fCoreNames = new String[0];
+  private long[] fCounts = new long[0];
+  private long fNbEvents;
+  private long fFirstTime;
+  private long fLastTime;
+  private TmfEventType[][] fTypes;
+
+  /*
+   * The per-core files of a directory, sorted by name.
+   */
+  private static List<File> listCoreFiles(File directory) {
+    List<File> cores = new ArrayList<>();
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return cores;
+    }
+    Arrays.sort(files);
+    for (File file : files) {
+      String name = file.getName();
+      if (file.isFile() && !name.startsWith(".") //$NON-NLS-1$
+          && !name.endsWith(NexusTypeIndex.SUFFIX)
+          && !NexusCompressedTrace.isCompressed(file)
+          && NexusHeader.read(file) != null) {
+        cores.add(file);
+      }
+    }
+    return cores;
+  }
+
+  @Override
+  public IStatus validate(IProject project, String path) {
+    File directory = new File(path);
+    if (!directory.isDirectory()) {
+      return new Status(IStatus.ERROR, Activator.PLUGIN_ID, path
+          + " is not a directory"); //$NON-NLS-1$
+    }
+    if (listCoreFiles(directory).isEmpty()) {
+      return new Status(IStatus.ERROR, Activator.PLUGIN_ID, path
+          + " does not hold any Nexus trace"); //$NON-NLS-1$
+    }
+    return new TraceValidationStatus(21,
+        "org.eclipse.linuxtools.tracing.examples.trace.nexusmulticoretrace"); //$NON-NLS-1$
+  }
+
+  @Override
+  public void initTrace(IResource resource, String path,
+      Class<? extends ITmfEvent> type) throws TmfTraceException {
+    super.initTrace(resource, path, type);
+    List<File> files = listCoreFiles(new File(path));
+    if (files.isEmpty()) {
+      throw new TmfTraceException(path + " does not hold any Nexus trace"); //$NON-NLS-1$
+    }
+    int nbCores = files.size();
+    fCores = new NexusRecordFile[nbCores];
+    fCoreNames = new String[nbCores];
+    fCounts = new long[nbCores];
+    fTypes = new TmfEventType[nbCores][];
+    fFirstTime = Long.MAX_VALUE;
+    fLastTime = Long.MIN_VALUE;
+    try {
+      for (int core = 0; core < nbCores; core++) {
+        NexusRecordFile records = new NexusRecordFile(files.get(core));
+        fCores[core] = records;
+        fCoreNames[core] = files.get(core).getName();
+        fCounts[core] = records.getNbRecords();
+        fNbEvents += fCounts[core];
+        fTypes[core] = NexusTrace.createEventTypes(records.getEventTypeNames(),
+            "value", NexusEvent.CORE_FIELD); //$NON-NLS-1$
+        if (fCounts[core] > 0) {
+          fFirstTime = Math.min(fFirstTime, records.getTime(0));
+          fLastTime = Math.max(fLastTime, records.getTime(fCounts[core] - 1));
+        }
+      }
+    } catch (IOException e) {
+      disposeCores();
+      throw new TmfTraceException(e.getMessage(), e);
+    }
+    fCurrent = new NexusMultiCoreLocation(0, new long[nbCores]);
+    if (fNbEvents > 0) {
+      setTimeRange(new TmfTimeRange(new TmfTimestamp(fFirstTime,
+          ITmfTimestamp.MICROSECOND_SCALE), new TmfTimestamp(fLastTime,
+          ITmfTimestamp.MICROSECOND_SCALE)));
+    }
+  }
+
+  /**
+   * Ranks and times are found with binary searches, the trace does not need
+   * checkpoints.
+   */
+  @Override
+  protected ITmfTraceIndexer createIndexer(int interval) {
+    return new NexusIndexer(this);
+  }
+
+  /**
+   * Get the number of cores
+   *
+   * @return the number of per-core files
+   */
+  public int getNbCores() {
+    return fCores.length;
+  }
+
+  /**
+   * Get the name of the file of a core
+   *
+   * @param core
+   *          the index of the core
+   * @return the name of its file
+   */
+  public String getCoreName(int core) {
+    return fCoreNames[core];
+  }
+
+  @Override
+  public long getNbEvents() {
+    return fNbEvents;
+  }
+
+  @Override
+  public ITmfLocation getCurrentLocation() {
+    return fCurrent;
+  }
+
+  @Override
+  public double getLocationRatio(ITmfLocation location) {
+    return ((Long) location.getLocationInfo()).doubleValue() / fNbEvents;
+  }
+
+  /**
+   * A {@link NexusMultiCoreLocation} is resumed as is, any other location is
+   * taken as the rank in the merged stream.
+   */
+  @Override
+  public ITmfContext seekEvent(ITmfLocation location) {
+    if (!(location instanceof NexusMultiCoreLocation)) {
+      return seekEvent((location == null) ? 0
+          : ((Long) location.getLocationInfo()).longValue());
+    }
+    NexusMultiCoreLocation nl = (NexusMultiCoreLocation) location;
+    fCurrent = nl;
+    return new NexusMultiCoreContext(fCores, fCounts, nl);
+  }
+
+  @Override
+  public ITmfContext seekEvent(long rank) {
+    NexusMultiCoreLocation location;
+    try {
+      location = locate(rank);
+    } catch (IOException e) {
+      location = new NexusMultiCoreLocation(0, new long[fCores.length]);
+    }
+    return seekEvent(location);
+  }
+
+  @Override
+  public ITmfContext seekEvent(double ratio) {
+    return seekEvent((long) (ratio * fNbEvents));
+  }
+
+  /**
+   * The first record at or after a time, in every core
+   */
+  @Override
+  public ITmfContext seekEvent(ITmfTimestamp timestamp) {
+    if (timestamp == null) {
+      return seekEvent((ITmfLocation) null);
+    }
+    long time = timestamp.normalize(0, ITmfTimestamp.MICROSECOND_SCALE)
+        .getValue();
+    long[] coreRanks = new long[fCores.length];
+    long rank = 0;
+    try {
+      rank = countBefore(time, coreRanks);
+    } catch (IOException e) {
+      Arrays.fill(coreRanks, 0);
+      rank = 0;
+    }
+    return seekEvent(new NexusMultiCoreLocation(rank, coreRanks));
+  }
+
+  @Override
+  public ITmfEvent getNext(ITmfContext context) {
+    return getNext(context, null);
+  }
+
+  /**
+   * Read the next event of the merged stream, decoding it in an existing event
+   * if there is one.
+   *
+   * @param context
+   *          the context to read from, it is moved to the next event
+   * @param reuse
+   *          the event to decode the record into, or null to create one
+   * @return the event, or null if the end of the trace was reached
+   * @throws IllegalArgumentException
+   *           if the context does not come from the seekEvent methods of this
+   *           trace, the merge state of the cores is in the context
+   * @see NexusTrace#getNext(ITmfContext, NexusEvent)
+   */
+  public NexusEvent getNext(ITmfContext context, NexusEvent reuse) {
+    if (!(context instanceof NexusMultiCoreContext)) {
+      throw new IllegalArgumentException("Not a context of " + getName()); //$NON-NLS-1$
+    }
+    NexusEvent event = (reuse != null) ? reuse : new NexusEvent(this);
+    return ((NexusMultiCoreContext) context).next(event, fTypes) ? event : null;
+  }
+
+  @Override
+  public ITmfEvent parseEvent(ITmfContext context) {
+    /* a fresh merge, so the context does not move */
+    return getNext(seekEvent(context.getLocation()), null);
+  }
+
+  @Override
+  public synchronized void dispose() {
+    super.dispose();
+    disposeCores();
+  }
+
+  private void disposeCores() {
+    for (NexusRecordFile core : fCores) {
+      if (core != null) {
+        core.dispose();
+      }
+    }
+    fCores = new NexusRecordFile[0];
+  }
+
+  /*
+   * Number of records before a time, and the rank of the first record at or
+   * after that time in every core.
+   */
+  private long countBefore(long time, long[] coreRanks) throws IOException {
+    long count = 0;
+    for (int core = 0; core < fCores.length; core++) {
+      coreRanks[core] = Math.min(fCores[core].getRank(time), fCounts[core]);
+      count += coreRanks[core];
+    }
+    return count;
+  }
+
+  /*
+   * Find the position of every core at a rank of the merged stream: the time
+   * of that record is the last time with at most rank records before it, and
+   * the records at that time are taken core by core.
+   */
+  private NexusMultiCoreLocation locate(long rank) throws IOException {
+    int nbCores = fCores.length;
+    long[] coreRanks = new long[nbCores];
+    if (rank <= 0 || fNbEvents == 0) {
+      return new NexusMultiCoreLocation(0, coreRanks);
+    }
+    if (rank >= fNbEvents) {
+      return new NexusMultiCoreLocation(fNbEvents, fCounts.clone());
+    }
+    long lo = fFirstTime;
+    long hi = fLastTime + 1;
+    while (hi - lo > 1) {
+      long mid = lo + ((hi - lo) >>> 1);
+      if (countBefore(mid, coreRanks) <= rank) {
+        lo = mid;
+      } else {
+        hi = mid;
+      }
+    }
+    long remaining = rank - countBefore(lo, coreRanks);
+    for (int core = 0; core < nbCores && remaining > 0; core++) {
+      long atTime = Math.min(fCores[core].getRank(lo + 1), fCounts[core])
+          - coreRanks[core];
+      long taken = Math.min(remaining, atTime);
+      coreRanks[core] += taken;
+      remaining -= taken;
+    }
+    return new NexusMultiCoreLocation(rank, coreRanks);
+  }
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The records of a Nexus trace file, without a trace around them: no signal
+ * handler, no follower and no event. The cores of a
+ * {@link NexusMultiCoreTrace} are read with it.
+ *
+ * The records are the ones in the file when it is opened.
+ */
+final class NexusRecordFile {
+
+  private static final int RECORD_SIZE = 8;
+
+  private final String[] fEventTypes;
+  private final long fNbRecords;
+  private final FileChannel fFileChannel;
+  private final NexusMappingManager fMapping;
+  private final NexusEpochTable fEpochs;
+
+  /**
+   * Open a trace file and find its wrap epochs
+   *
+   * @param file
+   *          the trace file
+   * @throws IOException
+   *           if the file does not have a header or could not be read
+   */
+  NexusRecordFile(File file) throws IOException {
+    NexusHeader header = NexusHeader.read(file);
+    if (header == null) {
+      throw new IOException(file + " does not have a header"); //$NON-NLS-1$
+    }
+    fEventTypes = header.getEventTypes();
+    long offset = header.getDataOffset();
+    fNbRecords = Math.max(0, (file.length() - offset) / RECORD_SIZE);
+    fFileChannel = new FileInputStream(file).getChannel();
+    try {
+      fMapping = new NexusMappingManager(fFileChannel, offset, RECORD_SIZE,
+          fNbRecords, false);
+      fEpochs = new NexusEpochTable(fMapping, RECORD_SIZE, fNbRecords);
+    } catch (IOException e) {
+      fFileChannel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the number of records
+   *
+   * @return the number of records in the file when it was opened
+   */
+  long getNbRecords() {
+    return fNbRecords;
+  }
+
+  /**
+   * Get the names of the event types, from the header of the file
+   *
+   * @return the 64 names, indexed by type ID
+   */
+  String[] getEventTypeNames() {
+    return fEventTypes;
+  }
+
+  /**
+   * Find the first record at or after a time
+   *
+   * @param time
+   *          the 64-bit time in microseconds
+   * @return the rank of the record, the number of records if there is none
+   * @throws IOException
+   *           if the records could not be read
+   */
+  long getRank(long time) throws IOException {
+    return fEpochs.findRank(time);
+  }
+
+  /**
+   * Get the time of a record, with its wrap epoch
+   *
+   * @param rank
+   *          the rank of the record
+   * @return the 64-bit time in microseconds
+   * @throws IOException
+   *           if the record could not be read
+   */
+  long getTime(long rank) throws IOException {
+    return fEpochs.getTime(rank);
+  }
+
+  /**
+   * Decode a block of records straight into primitive arrays.
+   *
+   * @param rank
+   *          the rank of the first record
+   * @param count
+   *          the number of records to read
+   * @param timestamps
+   *          receives the 64-bit times, in microseconds
+   * @param types
+   *          receives the type IDs
+   * @param payloads
+   *          receives the payloads
+   * @return the number of records read, less than count at the end of the
+   *         file
+   * @throws IOException
+   *           if the records could not be read
+   * @see NexusTrace#readBatch(long, int, long[], byte[], int[])
+   */
+  int readBatch(long rank, int count, long[] timestamps, byte[] types,
+      int[] payloads) throws IOException {
+    return readBatch(fMapping, fEpochs, fNbRecords, rank, count, timestamps,
+        types, payloads, 0);
+  }
+
+  /**
+   * Unmap the records and close the file
+   */
+  void dispose() {
+    fMapping.clear();
+    try {
+      fFileChannel.close();
+    } catch (IOException e) {
+    }
+  }
+
+  /*
+   * Decode a block of records of a mapping, the loop shared with the
+   * NexusTrace. Two ints per record, the time then the type and payload.
+   */
+  static int readBatch(NexusMappingManager mapping, NexusEpochTable epochs,
+      long nbRecords, long rank, int count, long[] timestamps, byte[] types,
+      int[] payloads, int offset) throws IOException {
+    if (rank < 0 || rank >= nbRecords) {
+      return 0;
+    }
+    int total = (int) Math.min(count, nbRecords - rank);
+    int done = 0;
+    while (done < total) {
+      long current = rank + done;
+      ByteBuffer region = mapping.getRegion(current);
+      long regionStart = mapping.getRegionStart(current);
+      long regionEnd = regionStart + region.capacity() / RECORD_SIZE;
+      /* a run of records in the same region and the same epoch */
+      long end = Math.min(rank + total,
+          Math.min(regionEnd, epochs.getNextWrap(current)));
+      long epoch = epochs.getEpoch(current) << 32;
+      /* the view starts at the region's position, which is not ours to rely on */
+      ByteBuffer start = region.duplicate();
+      start.position(0);
+      IntBuffer ints = start.asIntBuffer();
+      int index = (int) (current - regionStart) * 2;
+      int out = offset + done;
+      int last = out + (int) (end - current);
+      for (int i = out; i < last; i++) {
+        timestamps[i] = epoch | (0x00000000ffffffffL & ints.get(index));
+        int data = ints.get(index + 1);
+        types[i] = (byte) ((data >>> 26) & 0x03f);
+        payloads[i] = data & 0x03ffffff;
+        index += 2;
+      }
+      done += last - out;
+    }
+    return total;
+  }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+/**
+ * Built-in reducers for {@link NexusScanner}.
+ */
+public final class NexusReducers {
+
+  private NexusReducers() {
+  }
+
+  /**
+   * Count the records of each type
+   *
+   * @return a reducer whose result is the number of records per type ID
+   */
+  public static INexusReducer<long[]> typeCounts() {
+    return new TypeCountReducer();
+  }
+
+  /**
+   * Sum the payloads of each type
+   *
+   * @return a reducer whose result is the sum of the payloads per type ID
+   */
+  public static INexusReducer<long[]> payloadSums() {
+    return new PayloadSumReducer();
+  }
+
+  /**
+   * Count the records in time buckets of the same width, give or take a
+   * microsecond
+   *
+   * @param start
+   *          the start of the first bucket, in microseconds
+   * @param end
+   *          the end of the last bucket, in microseconds
+   * @param nb
+   *          the number of buckets
+   * @return a reducer whose result is the number of records per bucket,
+   *         records outside of [start, end] are not counted
+   */
+  public static INexusReducer<long[]> timeHistogram(long start, long end,
+      int nb) {
+    return new TimeHistogramReducer(start, end, nb);
+  }
+
+  private abstract static class LongArrayReducer implements
+      INexusReducer<long[]> {
+
+    private final int fSize;
+
+    protected LongArrayReducer(int size) {
+      fSize = size;
+    }
+
+    @Override
+    public long[] createPartial() {
+      return new long[fSize];
+    }
+
+    @Override
+    public long[] merge(long[] left, long[] right) {
+      for (int i = 0; i < left.length; i++) {
+        left[i] += right[i];
+      }
+      return left;
+    }
+  }
+
+  private static class TypeCountReducer extends LongArrayReducer {
+
+    public TypeCountReducer() {
+      super(NexusHeader.NO_OF_EVENTS);
+    }
+
+    @Override
+    public void reduce(long[] partial, long[] times, byte[] types,
+        int[] payloads, int count) {
+      for (int i = 0; i < count; i++) {
+        partial[types[i]]++;
+      }
+    }
+  }
+
+  private static class PayloadSumReducer extends LongArrayReducer {
+
+    public PayloadSumReducer() {
+      super(NexusHeader.NO_OF_EVENTS);
+    }
+
+    @Override
+    public void reduce(long[] partial, long[] times, byte[] types,
+        int[] payloads, int count) {
+      for (int i = 0; i < count; i++) {
+        partial[types[i]] += payloads[i];
+      }
+    }
+  }
+
+  private static class TimeHistogramReducer extends LongArrayReducer {
+
+    private final long fStart;
+    private final long fEnd;
+    private final long fSpan;
+    private final int fNb;
+
+    public TimeHistogramReducer(long start, long end, int nb) {
+      super(nb);
+      fStart = start;
+      fEnd = end;
+      /* both ends are included, end lands in the last bucket */
+      fSpan = end - start + 1;
+      fNb = nb;
+    }
+
+    @Override
+    public void reduce(long[] partial, long[] times, byte[] types,
+        int[] payloads, int count) {
+      for (int i = 0; i < count; i++) {
+        long time = times[i];
+        if (time >= fStart && time <= fEnd) {
+          partial[(int) ((time - fStart) * fNb / fSpan)]++;
+        }
+      }
+    }
+  }
+}
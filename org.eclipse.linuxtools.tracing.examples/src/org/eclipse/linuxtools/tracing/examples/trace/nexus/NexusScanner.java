@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel scan of a Nexus trace.
+ *
+ * Nexus records are a fixed size, so the trace can be cut in rank ranges that
+ * are read independently. The scanner splits the requested range in segments
+ * with fork/join, runs the reducer on each segment and merges the partial
+ * results.
+ */
+public class NexusScanner {
+
+  /* records decoded at a time by a segment */
+  private static final int BATCH_SIZE = 4096;
+
+  /* below this, a segment is not split anymore */
+  private static final long MIN_SEGMENT_SIZE = 1L << 16;
+
+  /* segments per thread, so that the threads finishing first can steal work */
+  private static final int SEGMENTS_PER_THREAD = 4;
+
+  private static ForkJoinPool sDefaultPool;
+
+  private final NexusTrace fTrace;
+  private final ForkJoinPool fPool;
+
+  /**
+   * Constructor, using a pool shared by all the scanners with one thread per
+   * core
+   *
+   * @param trace
+   *          the trace to scan
+   */
+  public NexusScanner(NexusTrace trace) {
+    this(trace, getDefaultPool());
+  }
+
+  /**
+   * Constructor, with its own pool
+   *
+   * @param trace
+   *          the trace to scan
+   * @param parallelism
+   *          the number of threads
+   */
+  public NexusScanner(NexusTrace trace, int parallelism) {
+    this(trace, new ForkJoinPool(parallelism));
+  }
+
+  private NexusScanner(NexusTrace trace, ForkJoinPool pool) {
+    fTrace = trace;
+    fPool = pool;
+  }
+
+  private static synchronized ForkJoinPool getDefaultPool() {
+    if (sDefaultPool == null) {
+      sDefaultPool = new ForkJoinPool();
+    }
+    return sDefaultPool;
+  }
+
+  /**
+   * Run a reducer over all the records of the trace
+   *
+   * @param reducer
+   *          the reducer
+   * @return the merged result
+   * @throws IOException
+   *           if the records could not be read
+   */
+  public <R> R scan(INexusReducer<R> reducer) throws IOException {
+    return scan(reducer, 0, fTrace.getNbEvents());
+  }
+
+  /**
+   * Run a reducer over a range of records
+   *
+   * @param reducer
+   *          the reducer
+   * @param startRank
+   *          the first record
+   * @param endRank
+   *          the record after the last one
+   * @return the merged result
+   * @throws IOException
+   *           if the records could not be read
+   */
+  public <R> R scan(INexusReducer<R> reducer, long startRank, long endRank)
+      throws IOException {
+    long start = Math.max(0, startRank);
+    long end = Math.min(endRank, fTrace.getNbEvents());
+    if (start >= end) {
+      return reducer.createPartial();
+    }
+    long segmentSize = Math.max(MIN_SEGMENT_SIZE, (end - start)
+        / (fPool.getParallelism() * SEGMENTS_PER_THREAD));
+    try {
+      return fPool.invoke(new ScanTask<>(reducer, start, end, segmentSize));
+    } catch (ScanException e) {
+      /* the pool may have wrapped it again when rethrowing */
+      for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Stop the threads of this scanner, if it has its own pool
+   */
+  public void dispose() {
+    if (fPool != sDefaultPool) {
+      fPool.shutdown();
+    }
+  }
+
+  private class ScanTask<R> extends RecursiveTask<R> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final INexusReducer<R> fReducer;
+    private final long fStart;
+    private final long fEnd;
+    private final long fSegmentSize;
+
+    public ScanTask(INexusReducer<R> reducer, long start, long end,
+        long segmentSize) {
+      fReducer = reducer;
+      fStart = start;
+      fEnd = end;
+      fSegmentSize = segmentSize;
+    }
+
+    @Override
+    protected R compute() {
+      if (fEnd - fStart <= fSegmentSize) {
+        return reduceSegment();
+      }
+      long middle = (fStart + fEnd) >>> 1;
+      ScanTask<R> left = new ScanTask<>(fReducer, fStart, middle, fSegmentSize);
+      ScanTask<R> right = new ScanTask<>(fReducer, middle, fEnd, fSegmentSize);
+      left.fork();
+      R rightResult = right.compute();
+      return fReducer.merge(left.join(), rightResult);
+    }
+
+    private R reduceSegment() {
+      R partial = fReducer.createPartial();
+      long[] times = new long[BATCH_SIZE];
+      byte[] types = new byte[BATCH_SIZE];
+      int[] payloads = new int[BATCH_SIZE];
+      long rank = fStart;
+      try {
+        while (rank < fEnd) {
+          int count = (int) Math.min(BATCH_SIZE, fEnd - rank);
+          int read = fTrace.readBatch(rank, count, times, types, payloads);
+          if (read <= 0) {
+            break;
+          }
+          fReducer.reduce(partial, times, types, payloads, read);
+          rank += read;
+        }
+      } catch (IOException e) {
+        throw new ScanException(e);
+      }
+      return partial;
+    }
+  }
+
+  /* carries the IOException of a segment out of the pool */
+  private static class ScanException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ScanException(IOException cause) {
+      super(cause);
+    }
+  }
+}
@@ -12,34 +12,34 @@
 
 package org.eclipse.linuxtools.tracing.examples.trace.nexus;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileChannel.MapMode;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.linuxtools.tracing.examples.Activator;
+import org.eclipse.linuxtools.tracing.examples.IGrowingTrace;
+import org.eclipse.linuxtools.tracing.examples.TailFollower;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
-import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.TmfEventType;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.signal.TmfTraceUpdatedSignal;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfEventParser;
-import org.eclipse.tracecompass.tmf.core.trace.TmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
 import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfPersistentlyIndexable;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
 import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
 
@@ -52,24 +52,29 @@ import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
 public class NexusTrace extends TmfTrace
     implements
       ITmfEventParser,
-      ITmfPersistentlyIndexable {
+      ITmfPersistentlyIndexable,
+      IGrowingTrace {
 
-  /* 64 values of types according to the spec */
-  private static final int NO_OF_EVENTS = 64;
+  private static final int NO_OF_EVENTS = NexusHeader.NO_OF_EVENTS;
 
-  private static final int CHUNK_SIZE = 65536;
   private static final int EVENT_SIZE = 8;
 
-  TmfLongLocation fCurrent;
+  /* last location seeked, the read positions are in the contexts */
+  private volatile ITmfLocation fCurrent = new TmfLongLocation(0L);
 
   private long fSize;
-  private long fNbEvents;
+  private volatile long fNbEvents;
   private long fOffset;
   private File fFile;
   private String[] fEventTypes;
-  private TmfEvent fCurrentEvent;
+  private TmfEventType[] fTypes;
   private FileChannel fFileChannel;
-  private MappedByteBuffer fMappedByteBuffer;
+  private NexusMappingManager fMapping;
+  private NexusEpochTable fEpochs;
+  private NexusTypeIndex fTypeIndex;
+  private boolean fTypeIndexOpened;
+  /* the follower of a capture still being written, null once opened complete */
+  private volatile TailFollower fFollower;
 
   @Override
   public IStatus validate(IProject project, String path) {
@@ -82,8 +87,12 @@ public class NexusTrace extends TmfTrace
       return new Status(IStatus.ERROR, Activator.PLUGIN_ID, path
           + " is not a file"); //$NON-NLS-1$
     }
-    String[] eventTypes = readHeader(f);
-    if (eventTypes != null && eventTypes.length == NO_OF_EVENTS) {
+    if (NexusCompressedTrace.isCompressed(f)) {
+      return new Status(IStatus.ERROR, Activator.PLUGIN_ID, path
+          + " is a compressed Nexus trace"); //$NON-NLS-1$
+    }
+    /* initTrace reuses the header if the file does not change in between */
+    if (NexusHeader.read(f) != null) {
       return new TraceValidationStatus(21,
           "org.eclipse.linuxtools.tracing.examples.trace.nexustrace"); //$NON-NLS-1$
     }
@@ -96,15 +105,35 @@ public class NexusTrace extends TmfTrace
     return fCurrent;
   }
 
+  /**
+   * A trace is not complete while its file is being followed
+   */
+  @Override
+  public boolean isComplete() {
+    TailFollower follower = fFollower;
+    return follower == null || follower.isComplete();
+  }
+
+  @Override
+  public void setComplete(boolean isComplete) {
+    TailFollower follower = fFollower;
+    if (follower != null) {
+      follower.setComplete(isComplete);
+    }
+  }
+
   @Override
-	public boolean isComplete() {
-		return true;
-	}
+  public void waitForProbe() {
+    TailFollower follower = fFollower;
+    if (follower != null) {
+      follower.waitForProbe();
+    }
+  }
 
   @Override
-	public long getStreamingInterval() {
-		return 0;
-	}
+  public long getStreamingInterval() {
+    return isComplete() ? 0 : TailFollower.INTERVAL;
+  }
 
   @Override
   public void initTrace(IResource resource, String path,
@@ -112,23 +141,116 @@ public class NexusTrace extends TmfTrace
     super.initTrace(resource, path, type);
     fFile = new File(path);
     fSize = fFile.length();
-    fEventTypes = readHeader(fFile);
+    NexusHeader header = NexusHeader.read(fFile);
+    if (header == null) {
+      throw new TmfTraceException(path + " does not have a header"); //$NON-NLS-1$
+    }
+    fOffset = header.getDataOffset();
+    fNbEvents = Math.max(0, (fSize - fOffset) / EVENT_SIZE);
+    fEventTypes = header.getEventTypes();
+    fTypes = createEventTypes(fEventTypes);
+    /* a capture that may still be written, the follower tells */
+    boolean growing = TailFollower.isRecent(fFile);
     try {
       fFileChannel = new FileInputStream(fFile).getChannel();
-      seek(0);
+      fMapping = new NexusMappingManager(fFileChannel, fOffset, EVENT_SIZE,
+          fNbEvents, growing);
+      fEpochs = new NexusEpochTable(fMapping, EVENT_SIZE, fNbEvents);
     } catch (IOException e) {
+      throw new TmfTraceException(e.getMessage(), e);
+    }
+    updateTimeRange();
+    if (growing) {
+      TailFollower follower = new TailFollower(this, fFile, fNbEvents);
+      fFollower = follower;
+      follower.start();
     }
   }
 
-  private String[] readHeader(File file) {
-    String header = new String();
-    try (BufferedReader br = new BufferedReader(new FileReader(file));) {
-      header = br.readLine();
+  /**
+   * Take into account the records appended to the trace file, and tell the
+   * rest of the application about them.
+   *
+   * @param fileSize
+   *          the new size of the file
+   * @return true if there are new records
+   */
+  @Override
+  public boolean grow(long fileSize) {
+    long nbEvents = Math.max(0, (fileSize - fOffset) / EVENT_SIZE);
+    if (nbEvents <= fNbEvents) {
+      return false;
+    }
+    try {
+      fMapping.setNbRecords(nbEvents);
+      /* the epochs must cover the records before readers can see them */
+      fEpochs.extend(nbEvents);
     } catch (IOException e) {
+      return false;
+    }
+    fNbEvents = nbEvents;
+    fFollower.setNbEvents(nbEvents);
+    TmfTimeRange range = updateTimeRange();
+    if (range != null) {
+      broadcast(new TmfTraceUpdatedSignal(this, this, range, nbEvents));
     }
-    fOffset = header.length() + 1;
-    fNbEvents = (fSize - fOffset) / EVENT_SIZE;
-    return header.split(",", NO_OF_EVENTS); //$NON-NLS-1$
+    return true;
+  }
+
+  /**
+   * The records are a fixed size and the wrap epochs give the rank of any
+   * time, so the trace does not need checkpoints.
+   */
+  @Override
+  protected ITmfTraceIndexer createIndexer(int interval) {
+    return new NexusIndexer(this);
+  }
+
+  /**
+   * Set the time range of the trace from its first and last events, when it is
+   * opened and whenever it grows.
+   *
+   * @return the time range, or null if the trace is empty
+   */
+  TmfTimeRange updateTimeRange() {
+    long nbEvents = fNbEvents;
+    if (nbEvents <= 0) {
+      return null;
+    }
+    try {
+      TmfTimeRange range = new TmfTimeRange(new TmfTimestamp(getTime(0),
+          ITmfTimestamp.MICROSECOND_SCALE), new TmfTimestamp(
+          getTime(nbEvents - 1), ITmfTimestamp.MICROSECOND_SCALE));
+      setTimeRange(range);
+      return range;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /*
+   * One event type per type ID, shared by all the events of that type.
+   */
+  static TmfEventType[] createEventTypes(String[] names) {
+    return createEventTypes(names, "value"); //$NON-NLS-1$
+  }
+
+  /*
+   * Same, with the given fields in the content of the events.
+   */
+  static TmfEventType[] createEventTypes(String[] names, String... fieldNames) {
+    final TmfEventField[] fields = new TmfEventField[fieldNames.length];
+    for (int i = 0; i < fieldNames.length; i++) {
+      fields[i] = new TmfEventField(fieldNames[i], null, null);
+    }
+    final TmfEventField root = new TmfEventField(ITmfEventField.ROOT_FIELD_ID,
+        null, fields);
+    TmfEventType[] types = new TmfEventType[NO_OF_EVENTS];
+    for (int i = 0; i < NO_OF_EVENTS; i++) {
+      String name = (i < names.length) ? names[i] : Integer.toString(i);
+      types[i] = new TmfEventType(name, root);
+    }
+    return types;
   }
 
   @Override
@@ -143,85 +265,323 @@ public class NexusTrace extends TmfTrace
     if (location == null) {
       nl = new TmfLongLocation(0L);
     }
-    try {
-      seek(nl.getLocationInfo());
-    } catch (IOException e) {
-    }
-    return new TmfContext(nl, nl.getLocationInfo());
+    fCurrent = nl;
+    return new NexusContext(nl.getLocationInfo());
+  }
+
+  @Override
+  public ITmfContext seekEvent(long rank) {
+    return seekEvent(new TmfLongLocation(rank));
   }
 
   @Override
   public ITmfContext seekEvent(double ratio) {
     long rank = (long) (ratio * fNbEvents);
+    fCurrent = new TmfLongLocation(rank);
+    return new NexusContext(rank);
+  }
+
+  /**
+   * Seek by time with a binary search over the records, no checkpoint needed.
+   */
+  @Override
+  public ITmfContext seekEvent(ITmfTimestamp timestamp) {
+    if (timestamp == null) {
+      return seekEvent((ITmfLocation) null);
+    }
+    long rank = 0;
     try {
-      seek(rank);
+      rank = getRank(timestamp.normalize(0, ITmfTimestamp.MICROSECOND_SCALE)
+          .getValue());
     } catch (IOException e) {
     }
-    return new TmfContext(new TmfLongLocation(rank), rank);
+    return seekEvent(new TmfLongLocation(rank));
+  }
+
+  /**
+   * Find the first event at or after a time
+   *
+   * @param time
+   *          the 64-bit time in microseconds
+   * @return the rank of the event, the number of events if there is none
+   * @throws IOException
+   *           if the events could not be read
+   */
+  public long getRank(long time) throws IOException {
+    return fEpochs.findRank(time);
   }
 
-  private void seek(long rank) throws IOException {
-    final long position = fOffset + rank * EVENT_SIZE;
-    int size = Math.min((int) (fFileChannel.size() - position), CHUNK_SIZE);
-    fMappedByteBuffer = fFileChannel.map(MapMode.READ_ONLY, position, size);
+  /**
+   * Get the time of an event, with its wrap epoch
+   *
+   * @param rank
+   *          the rank of the event
+   * @return the 64-bit time in microseconds
+   * @throws IOException
+   *           if the event could not be read
+   */
+  public long getTime(long rank) throws IOException {
+    return fEpochs.getTime(rank);
+  }
+
+  /**
+   * Get the names of the event types, from the header of the trace
+   *
+   * @return the 64 names, indexed by type ID
+   */
+  String[] getEventTypeNames() {
+    return fEventTypes;
+  }
+
+  /**
+   * Get the mapping manager of this trace, to look at its remap counters
+   *
+   * @return the mapping manager, null if the trace is not initialized
+   */
+  public NexusMappingManager getMappingManager() {
+    return fMapping;
   }
 
   @Override
-  public synchronized long getNbEvents() {
+  public long getNbEvents() {
     return fNbEvents;
   }
 
   @Override
-  public synchronized ITmfEvent getNext(ITmfContext context) {
-    TmfEvent event = null;
-    long ts = -1;
-    int type = -1;
-    int payload = -1;
+  public ITmfEvent getNext(ITmfContext context) {
+    return getNext(context, null);
+  }
+
+  /**
+   * Read the next event, decoding it in an existing event if there is one.
+   *
+   * Bulk consumers which only look at one event at a time can pass the same
+   * event on every call, reading the trace then does not allocate anything.
+   * The event must not be kept around (or handed to another thread) since its
+   * contents will be overwritten by the next call.
+   *
+   * This does not lock the trace, contexts obtained from this trace's
+   * seekEvent methods carry their own read cursor and can be read from
+   * different threads at the same time (but a context must only be used by
+   * one thread).
+   *
+   * At the end of a trace that is still being written, this waits for the
+   * next record to be appended, or for the trace to be complete.
+   *
+   * @param context
+   *          the context to read from, it is moved to the next event
+   * @param reuse
+   *          the event to decode the record into, or null to create one
+   * @return the event, or null if the end of the trace was reached
+   */
+  public NexusEvent getNext(ITmfContext context, NexusEvent reuse) {
     long pos = context.getRank();
-    if (pos < getNbEvents()) {
-      try {
-        // if we are approaching the limit size, move to a new window
-        if (fMappedByteBuffer.position() + EVENT_SIZE > fMappedByteBuffer
-            .limit()) {
-          seek(context.getRank());
-        }
-        // the trace format, is 32 bits for the time, 6 for the event
-        // type,
-        // 26 for the data.
-        // all the 0x00 stuff are masks.
-        ts = 0x00000000ffffffffL & fMappedByteBuffer.getInt();
-        long data = 0x00000000ffffffffL & fMappedByteBuffer.getInt();
-        type = (int) (data >> 26) & (0x03f);
-        payload = (int) (data & 0x003FFFFFFL);
-        // the time is in microseconds.
-        TmfTimestamp timestamp = new TmfTimestamp(ts, -6);
-        final String title = fEventTypes[type];
-        // put the value in a field
-        final TmfEventField tmfEventField = new TmfEventField(
-            "value", payload, null); //$NON-NLS-1$
-        // the field must be in an array
-        final TmfEventField[] events = new TmfEventField[1];
-        events[0] = tmfEventField;
-        final TmfEventField content = new TmfEventField(
-            ITmfEventField.ROOT_FIELD_ID, null, events);
-        // create the event
-        event = new TmfEvent(this, pos, timestamp, new TmfEventType(getTraceTypeId(), content), content);
-        fCurrent = new TmfLongLocation(pos);
-      } catch (IOException e) {
+    if (pos >= fNbEvents) {
+      TailFollower follower = fFollower;
+      if (follower == null || !follower.waitForEvent(pos)) {
+        return null;
       }
     }
+    NexusEvent event = readEvent(context, pos, reuse);
     if (event != null) {
-      updateAttributes(context, event.getTimestamp());
-      context.setLocation(getCurrentLocation());
+      /*
+       * The number of events and the time range are known without reading,
+       * there are no attributes to update.
+       */
+      if (!(context instanceof NexusContext)) {
+        /* a Nexus context derives its location from its rank */
+        context.setLocation(new TmfLongLocation(pos + 1));
+      }
       context.increaseRank();
     }
-    fCurrentEvent = event;
     return event;
   }
 
+  /*
+   * Decode a record without moving the context.
+   */
+  private NexusEvent readEvent(ITmfContext context, long rank, NexusEvent reuse) {
+    if (rank < 0 || rank >= getNbEvents()) {
+      return null;
+    }
+    try {
+      final ByteBuffer region;
+      final int index;
+      if (context instanceof NexusContext) {
+        NexusContext nexusContext = (NexusContext) context;
+        index = nexusContext.moveTo(fMapping, rank, EVENT_SIZE);
+        region = nexusContext.getRegion();
+      } else {
+        /* absolute reads only, the shared region is not modified */
+        region = fMapping.getRegion(rank);
+        index = (int) ((rank - fMapping.getRegionStart(rank)) * EVENT_SIZE);
+      }
+      // the trace format, is 32 bits for the time, 6 for the event
+      // type,
+      // 26 for the data.
+      // all the 0x00 stuff are masks.
+      long ts = fEpochs.getTime(rank, region.getInt(index));
+      long data = 0x00000000ffffffffL & region.getInt(index + 4);
+      int type = (int) (data >> 26) & (0x03f);
+      int payload = (int) (data & 0x003FFFFFFL);
+      NexusEvent event = (reuse != null) ? reuse : new NexusEvent(this);
+      event.set(rank, ts, type, payload, fTypes[type]);
+      return event;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Decode a block of records straight into primitive arrays.
+   *
+   * @param rank
+   *          the rank of the first record
+   * @param count
+   *          the number of records to read
+   * @param timestamps
+   *          receives the 64-bit times, in microseconds
+   * @param types
+   *          receives the type IDs
+   * @param payloads
+   *          receives the payloads
+   * @return the number of records read, less than count at the end of the
+   *         trace
+   * @throws IOException
+   *           if the records could not be read
+   */
+  public int readBatch(long rank, int count, long[] timestamps, byte[] types,
+      int[] payloads) throws IOException {
+    return readBatch(rank, count, timestamps, types, payloads, 0);
+  }
+
+  /**
+   * Decode a block of records straight into primitive arrays.
+   *
+   * No event is created, the records are read as pairs of ints from a view of
+   * the mapped region, in a loop over plain arrays that the JIT can unroll.
+   * This is the way to go for statistics, histograms or exports, which only
+   * need the numbers.
+   *
+   * @param rank
+   *          the rank of the first record
+   * @param count
+   *          the number of records to read
+   * @param timestamps
+   *          receives the 64-bit times, in microseconds
+   * @param types
+   *          receives the type IDs
+   * @param payloads
+   *          receives the payloads
+   * @param offset
+   *          the index in the arrays of the first record
+   * @return the number of records read, less than count at the end of the
+   *         trace
+   * @throws IOException
+   *           if the records could not be read
+   */
+  public int readBatch(long rank, int count, long[] timestamps, byte[] types,
+      int[] payloads, int offset) throws IOException {
+    return NexusRecordFile.readBatch(fMapping, fEpochs, getNbEvents(), rank,
+        count, timestamps, types, payloads, offset);
+  }
+
+  /**
+   * Run a reducer over all the records of the trace, in parallel on all the
+   * cores.
+   *
+   * @param reducer
+   *          the reducer
+   * @return the merged result of all the segments
+   * @throws IOException
+   *           if the records could not be read
+   * @see NexusScanner
+   */
+  public <R> R scan(INexusReducer<R> reducer) throws IOException {
+    return new NexusScanner(this).scan(reducer);
+  }
+
+  /**
+   * Get the per-type index of this trace, building its sidecar file the first
+   * time it is needed.
+   *
+   * @return the index, or null if it could not be built
+   * @see NexusTypeIndex
+   */
+  public synchronized NexusTypeIndex getTypeIndex() {
+    if (!fTypeIndexOpened) {
+      fTypeIndex = NexusTypeIndex.openOrBuild(this, fFile);
+      fTypeIndexOpened = true;
+    }
+    return fTypeIndex;
+  }
+
+  /**
+   * Read the next event of some types, skipping the other ones.
+   *
+   * With the type index, the next matching rank is found with a binary search
+   * and the records in between are not read at all. Without it, or past the
+   * records it covers, the records are decoded one by one until one matches.
+   *
+   * @param context
+   *          the context to read from, it is moved after the returned event
+   * @param typeMask
+   *          the types to read, bit n set for type ID n
+   * @param reuse
+   *          the event to decode the record into, or null to create one
+   * @return the event, or null if there is no more event of these types
+   */
+  public NexusEvent getNext(ITmfContext context, long typeMask, NexusEvent reuse) {
+    NexusTypeIndex index = getTypeIndex();
+    if (index == null) {
+      NexusEvent event;
+      while ((event = getNext(context, reuse)) != null) {
+        if ((typeMask & (1L << event.getTypeId())) != 0) {
+          return event;
+        }
+      }
+      return null;
+    }
+    long covered = index.getNbRecords();
+    if (context.getRank() < covered) {
+      long rank = index.findNextOfTypes(typeMask, context.getRank());
+      if (rank != NexusTypeIndex.NONE) {
+        context.setRank(rank);
+        return getNext(context, reuse);
+      }
+      context.setRank(covered);
+    }
+    /* records appended after the index was built */
+    NexusEvent event;
+    while ((event = getNext(context, reuse)) != null) {
+      if ((typeMask & (1L << event.getTypeId())) != 0) {
+        return event;
+      }
+    }
+    return null;
+  }
+
   @Override
   public ITmfEvent parseEvent(ITmfContext context) {
-    return fCurrentEvent;
+    return readEvent(context, context.getRank(), null);
+  }
+
+  @Override
+  public synchronized void dispose() {
+    if (fFollower != null) {
+      fFollower.stopFollowing();
+    }
+    setComplete(true);
+    super.dispose();
+    if (fMapping != null) {
+      fMapping.clear();
+    }
+    if (fFileChannel != null) {
+      try {
+        fFileChannel.close();
+      } catch (IOException e) {
+      }
+    }
   }
 
   @Override
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   agent - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tracing.examples.trace.nexus;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Per-type index of a Nexus trace, stored in a sidecar file next to the trace.
+ *
+ * For each of the 64 type IDs, the file holds the sorted list of the ranks of
+ * the records of that type, as unsigned 32-bit values. A filtered read can then
+ * jump from one matching record to the next with a binary search instead of
+ * decoding every record.
+ *
+ * The index is built once with a parallel count of the types and one pass to
+ * fill the lists. A list is mapped in chunks of {@link #CHUNK_RANKS} ranks, so
+ * a type can have more records than one mapping holds. The index is
+ * memory-mapped when the trace is opened again, and rebuilt when the size or
+ * the modification time of the trace changed.
+ *
+ * File layout (big-endian):
+ *
+ * <pre>
+ * int    magic
+ * int    version
+ * long   size of the trace file
+ * long   modification time of the trace file
+ * long   number of records
+ * long[64] number of records of each type
+ * int[]  ranks, grouped by type
+ * </pre>
+ */
+public class NexusTypeIndex {
+
+  /** Suffix of the sidecar file, appended to the name of the trace */
+  public static final String SUFFIX = ".typeidx"; //$NON-NLS-1$
+
+  private static final int MAGIC = 0x4E585449; /* NXTI */
+  private static final int VERSION = 1;
+  private static final int NB_TYPES = NexusHeader.NO_OF_EVENTS;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + NB_TYPES * 8;
+  private static final int RANK_SIZE = 4;
+  private static final long UNSIGNED_MASK = 0x00000000ffffffffL;
+  private static final int BATCH_SIZE = 4096;
+
+  /* ranks in one mapping of a list, 1 GB */
+  private static final int CHUNK_SHIFT = 28;
+  private static final long CHUNK_RANKS = 1L << CHUNK_SHIFT;
+  private static final long CHUNK_MASK = CHUNK_RANKS - 1;
+
+  /** Value returned when there is no matching record */
+  public static final long NONE = -1;
+
+  private final long fNbRecords;
+  private final long[] fCounts;
+  /* the chunks of the list of each type */
+  private final IntBuffer[][] fRanks;
+
+  private NexusTypeIndex(long nbRecords, long[] counts, IntBuffer[][] ranks) {
+    fNbRecords = nbRecords;
+    fCounts = counts;
+    fRanks = ranks;
+  }
+
+  /**
+   * Open the index of a trace, building it if it does not exist or is out of
+   * date
+   *
+   * @param trace
+   *          the trace
+   * @param traceFile
+   *          the file of the trace
+   * @return the index, or null if it could not be built (trace too big, or
+   *         directory not writable)
+   */
+  static NexusTypeIndex openOrBuild(NexusTrace trace, File traceFile) {
+    long nbRecords = trace.getNbEvents();
+    if (nbRecords > UNSIGNED_MASK) {
+      /* the ranks do not fit in 32 bits */
+      return null;
+    }
+    File indexFile = new File(traceFile.getPath() + SUFFIX);
+    try {
+      NexusTypeIndex index = open(indexFile, traceFile.length(),
+          traceFile.lastModified(), nbRecords);
+      if (index != null) {
+        return index;
+      }
+      /*
+       * The file may be growing, the index covers the records as they are now
+       * and is rebuilt on the next open.
+       */
+      long size = traceFile.length();
+      long lastModified = traceFile.lastModified();
+      build(trace, nbRecords, size, lastModified, indexFile);
+      return open(indexFile, size, lastModified, nbRecords);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /*
+   * Map an existing index, null if it is not the one of this trace.
+   */
+  private static NexusTypeIndex open(File indexFile, long size,
+      long lastModified, long nbRecords) throws IOException {
+    if (!indexFile.isFile()) {
+      return null;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r"); //$NON-NLS-1$
+        FileChannel channel = raf.getChannel()) {
+      if (channel.size() < HEADER_SIZE) {
+        return null;
+      }
+      ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if (header.getInt() != MAGIC || header.getInt() != VERSION
+          || header.getLong() != size
+          || header.getLong() != lastModified
+          || header.getLong() != nbRecords) {
+        return null;
+      }
+      long[] counts = new long[NB_TYPES];
+      long total = 0;
+      for (int i = 0; i < NB_TYPES; i++) {
+        counts[i] = header.getLong();
+        total += counts[i];
+      }
+      if (total != nbRecords
+          || channel.size() != HEADER_SIZE + total * RANK_SIZE) {
+        return null;
+      }
+      IntBuffer[][] ranks = new IntBuffer[NB_TYPES][];
+      long position = HEADER_SIZE;
+      for (int i = 0; i < NB_TYPES; i++) {
+        ranks[i] = map(channel, MapMode.READ_ONLY, position, counts[i]);
+        position += counts[i] * RANK_SIZE;
+      }
+      /* the mappings stay valid once the channel is closed */
+      return new NexusTypeIndex(nbRecords, counts, ranks);
+    }
+  }
+
+  /*
+   * Write the index in a temporary file and move it in place, so that a
+   * partial index is never seen. The temporary file is removed if the build
+   * fails.
+   */
+  private static void build(NexusTrace trace, long nbRecords, long size,
+      long lastModified, File indexFile) throws IOException {
+    long[] counts = new NexusScanner(trace).scan(NexusReducers.typeCounts(), 0,
+        nbRecords);
+
+    File tmpFile = new File(indexFile.getPath() + ".tmp"); //$NON-NLS-1$
+    boolean done = false;
+    try (RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw"); //$NON-NLS-1$
+        FileChannel channel = raf.getChannel()) {
+      raf.setLength(0);
+      ByteBuffer header = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(lastModified)
+          .putLong(nbRecords);
+      for (int i = 0; i < NB_TYPES; i++) {
+        header.putLong(counts[i]);
+      }
+
+      IntBuffer[][] lists = new IntBuffer[NB_TYPES][];
+      long position = HEADER_SIZE;
+      for (int i = 0; i < NB_TYPES; i++) {
+        lists[i] = map(channel, MapMode.READ_WRITE, position, counts[i]);
+        position += counts[i] * RANK_SIZE;
+      }
+      long[] filled = new long[NB_TYPES];
+
+      long[] times = new long[BATCH_SIZE];
+      byte[] types = new byte[BATCH_SIZE];
+      int[] payloads = new int[BATCH_SIZE];
+      long rank = 0;
+      int read;
+      while ((read = trace.readBatch(rank,
+          (int) Math.min(BATCH_SIZE, nbRecords - rank), times, types,
+          payloads)) > 0) {
+        for (int i = 0; i < read; i++) {
+          long n = filled[types[i]]++;
+          lists[types[i]][(int) (n >>> CHUNK_SHIFT)].put((int) (n & CHUNK_MASK),
+              (int) (rank + i));
+        }
+        rank += read;
+      }
+      done = true;
+    } finally {
+      if (!done) {
+        tmpFile.delete();
+      }
+    }
+    Files.move(tmpFile.toPath(), indexFile.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /*
+   * Map a list of ranks in chunks of CHUNK_RANKS ranks, the last one holding
+   * the rest.
+   */
+  private static IntBuffer[] map(FileChannel channel, MapMode mode,
+      long position, long count) throws IOException {
+    IntBuffer[] chunks = new IntBuffer[(int) ((count + CHUNK_MASK) >>> CHUNK_SHIFT)];
+    for (int c = 0; c < chunks.length; c++) {
+      long first = (long) c << CHUNK_SHIFT;
+      chunks[c] = channel.map(mode, position + first * RANK_SIZE,
+          Math.min(CHUNK_RANKS, count - first) * RANK_SIZE).asIntBuffer();
+    }
+    return chunks;
+  }
+
+  /**
+   * Get the number of records covered by the index, the ones appended to the
+   * trace afterwards are not in it
+   *
+   * @return the number of records
+   */
+  public long getNbRecords() {
+    return fNbRecords;
+  }
+
+  /**
+   * Get the number of records of a type
+   *
+   * @param type
+   *          the type ID
+   * @return the number of records
+   */
+  public long getCount(int type) {
+    return fCounts[type];
+  }
+
+  /**
+   * Get the rank of the n-th record of a type
+   *
+   * @param type
+   *          the type ID
+   * @param n
+   *          the index of the record among the ones of its type
+   * @return the rank of the record in the trace
+   */
+  public long getRank(int type, long n) {
+    return fRanks[type][(int) (n >>> CHUNK_SHIFT)].get((int) (n & CHUNK_MASK))
+        & UNSIGNED_MASK;
+  }
+
+  /**
+   * Find the first record of a type at or after a rank
+   *
+   * @param type
+   *          the type ID
+   * @param rank
+   *          the rank to start from
+   * @return the rank of the record, or {@link #NONE}
+   */
+  public long findNext(int type, long rank) {
+    long lo = 0;
+    long hi = fCounts[type];
+    while (lo < hi) {
+      long mid = (lo + hi) >>> 1;
+      if (getRank(type, mid) < rank) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return (lo < fCounts[type]) ? getRank(type, lo) : NONE;
+  }
+
+  /**
+   * Find the first record of any of a set of types at or after a rank
+   *
+   * @param typeMask
+   *          the types, bit n set for type ID n
+   * @param rank
+   *          the rank to start from
+   * @return the rank of the record, or {@link #NONE}
+   */
+  public long findNextOfTypes(long typeMask, long rank) {
+    long next = Long.MAX_VALUE;
+    for (int type = 0; type < NB_TYPES; type++) {
+      if ((typeMask & (1L << type)) != 0) {
+        long candidate = findNext(type, rank);
+        if (candidate != NONE && candidate < next) {
+          next = candidate;
+        }
+      }
+    }
+    return (next == Long.MAX_VALUE) ? NONE : next;
+  }
+}
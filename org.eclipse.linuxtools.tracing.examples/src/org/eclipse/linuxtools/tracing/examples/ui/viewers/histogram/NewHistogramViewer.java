@@ -16,6 +16,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import org.eclipse.linuxtools.tracing.examples.cache.TmfStateStatistics_2;
 import org.eclipse.linuxtools.tracing.examples.cache.TmfStatisticsModule2;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Composite;
@@ -82,10 +83,23 @@ public class NewHistogramViewer extends TmfBarChartViewer {
                             continue;
                         }
                         final ITmfStatistics stats = statsMod.getStatistics();
+                        if (stats instanceof TmfStateStatistics_2) {
+                            /* one sweep over the history, no boxing */
+                            long[] values = ((TmfStateStatistics_2) stats).bulkHistogramQuery(start, end, nb);
+                            for (int i = 0; i < nb; i++) {
+                                yLong[i] += values[i];
+                            }
+                            continue;
+                        }
                         List<Long> values = stats.histogramQuery(start, end, nb);
 
-                        for (int i = 0; i < nb; i++) {
-                            yLong[i] += values.get(i);
+                        /* An implementation may return more values than asked */
+                        int i = 0;
+                        for (Long value : values) {
+                            if (i == nb) {
+                                break;
+                            }
+                            yLong[i++] += value;
                         }
                     }
 